@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import static junit.framework.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the bytes a piece of code allocates per call, by reading the allocation counter the
+ * JVM keeps for the calling thread before and after a number of calls. Allocations by other
+ * threads, e.g. of a server running in the same JVM, are not counted.
+ *
+ * The code is run {@link #DEFAULT_WARMUP_CALLS} times first, so the JIT compiler has done its
+ * work, then {@link #DEFAULT_ROUNDS} times {@link #DEFAULT_CALLS} calls are measured and the
+ * round with the least allocation counts. Lazy initialization or a resized buffer in one round
+ * thus do not make a budget fail, allocations made on every call do.
+ *
+ * The counter is available on HotSpot based JVMs only, see {@link #isSupported()}.
+ *
+ * @author hschuetz
+ *
+ */
+public class AllocationBudget {
+
+    public static final int DEFAULT_WARMUP_CALLS = 2000;
+    public static final int DEFAULT_CALLS = 500;
+    public static final int DEFAULT_ROUNDS = 3;
+
+    /**
+     * The code to measure, e.g. one request.
+     */
+    public interface Call {
+
+        void run() throws Exception;
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * @return whether this JVM counts the bytes allocated by each thread
+     */
+    public static boolean isSupported() {
+        try {
+            return THREADS instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) THREADS)
+                            .isThreadAllocatedMemorySupported();
+        } catch (NoClassDefFoundError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Fails if the given call allocates more than the given number of bytes on average, measured
+     * with the default number of calls.
+     *
+     * @param maxBytesPerCall
+     * @param call
+     * @throws Exception thrown by the call
+     */
+    public static void assertWithin(long maxBytesPerCall, Call call) throws Exception {
+        long bytesPerCall = measureBytesPerCall(call);
+        if (bytesPerCall > maxBytesPerCall) {
+            fail("Allocated " + bytesPerCall + " bytes per call, budget is " + maxBytesPerCall);
+        }
+    }
+
+    /**
+     * @param call
+     * @return bytes allocated per call, measured with the default number of calls
+     * @throws Exception thrown by the call
+     */
+    public static long measureBytesPerCall(Call call) throws Exception {
+        return measureBytesPerCall(call, DEFAULT_WARMUP_CALLS, DEFAULT_CALLS, DEFAULT_ROUNDS);
+    }
+
+    /**
+     * @param call
+     * @param warmupCalls calls made before measuring
+     * @param calls calls made per round
+     * @param rounds
+     * @return bytes allocated per call in the round allocating the least
+     * @throws Exception thrown by the call
+     */
+    public static long measureBytesPerCall(Call call, int warmupCalls, int calls, int rounds)
+            throws Exception {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException(
+                    "This JVM does not count the bytes allocated by threads");
+        }
+        if (calls <= 0 || rounds <= 0) {
+            throw new IllegalArgumentException("At least one call and one round needed");
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+        if (!threads.isThreadAllocatedMemoryEnabled()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+
+        for (int i = 0; i < warmupCalls; i++) {
+            call.run();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long least = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < calls; i++) {
+                call.run();
+            }
+            least = Math.min(least, threads.getThreadAllocatedBytes(threadId) - before);
+        }
+        return least / calls;
+    }
+}
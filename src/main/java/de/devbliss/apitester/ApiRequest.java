@@ -15,8 +15,13 @@
 package de.devbliss.apitester;
 
 import java.net.URI;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.http.HttpRequest;
 
@@ -31,10 +36,14 @@ import com.google.common.collect.ImmutableMap;
  */
 public class ApiRequest {
 
+    /**
+     * Lower case header names to values, the last one for repeated headers
+     */
     public final Map<String, String> headers;
     public final Map<String, String> cookies;
     public final URI uri;
     public final String httpMethod;
+    private final Headers allHeaders;
 
     public ApiRequest(
             URI uri,
@@ -43,10 +52,26 @@ public class ApiRequest {
             Map<String, String> cookies) {
         this.uri = uri;
         this.httpMethod = httpMethod;
-        this.headers = ImmutableMap.copyOf(headers);
+        this.allHeaders = Headers.of(headers);
+        this.headers = allHeaders;
         this.cookies = ImmutableMap.copyOf(cookies);
     }
 
+    /**
+     * Keeps the given headers and cookies without converting them, which happens only if they are
+     * read.
+     * 
+     * @param cookies snapshot of the cookies sent with the request, must not change afterwards
+     */
+    ApiRequest(URI uri, String httpMethod, Headers headers,
+            List<org.apache.http.cookie.Cookie> cookies) {
+        this.uri = uri;
+        this.httpMethod = httpMethod;
+        this.allHeaders = headers;
+        this.headers = headers;
+        this.cookies = new CookieMap(cookies);
+    }
+
     /**
      * Get the header value with the given name
      * 
@@ -55,7 +80,17 @@ public class ApiRequest {
      * @return The value, or null if no header with that name was found
      */
     public String getHeader(String name) {
-        return headers.get(name.toLowerCase(Locale.ENGLISH));
+        return allHeaders.getLast(name);
+    }
+
+    /**
+     * Get all values of the header with the given name, e.g. of repeated Cookie headers
+     * 
+     * @param name The name of the header, case insensitive
+     * @return The values in the order sent, empty if no header with that name was found
+     */
+    public List<String> getHeaders(String name) {
+        return allHeaders.getAll(name);
     }
 
     /**
@@ -67,4 +102,46 @@ public class ApiRequest {
     public String getCookie(String name) {
         return cookies.get(name.toLowerCase(Locale.ENGLISH));
     }
+
+    /**
+     * Lower case cookie names to values, built from the cookies on first use.
+     */
+    private static class CookieMap extends AbstractMap<String, String> {
+
+        private final List<org.apache.http.cookie.Cookie> cookies;
+        private volatile Map<String, String> values;
+
+        CookieMap(List<org.apache.http.cookie.Cookie> cookies) {
+            this.cookies = cookies;
+        }
+
+        @Override
+        public String get(Object key) {
+            return getValues().get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return getValues().containsKey(key);
+        }
+
+        @Override
+        public Set<Map.Entry<String, String>> entrySet() {
+            return getValues().entrySet();
+        }
+
+        private Map<String, String> getValues() {
+            Map<String, String> result = values;
+            if (result == null) {
+                Map<String, String> transformed = new HashMap<String, String>();
+                for (org.apache.http.cookie.Cookie cookie : cookies) {
+                    transformed.put(cookie.getName().toLowerCase(Locale.ENGLISH),
+                            cookie.getValue());
+                }
+                result = Collections.unmodifiableMap(transformed);
+                values = result;
+            }
+            return result;
+        }
+    }
 }
@@ -14,14 +14,30 @@
 
 package de.devbliss.apitester;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.http.Consts;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.codehaus.jackson.type.TypeReference;
 
-import com.google.common.collect.ImmutableMap;
-import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+
+import de.devbliss.apitester.json.JsonPath;
 
 /**
  * Data container for the most important parts of a HTTP response. Easier to use than
@@ -29,43 +45,324 @@ import com.google.gson.Gson;
  * type. Contains some isStatus...() convenience methods for the most frequently used HTTP status
  * codes.
  * 
+ * The body is kept as the raw bytes received. It is decoded to a string only when
+ * {@link #getPayload()} is called for the first time, using the charset from the Content-Type
+ * header. {@link #payloadJsonAs(Class)} parses the bytes directly, without creating that string.
+ * Bodies larger than {@link ApiTestUtil#setPayloadSpillThreshold(long)} are written to a temporary
+ * file instead of being kept in memory.
+ * 
  * @author hschuetz
  * 
  */
 public class ApiResponse {
 
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+    private static final byte[] NO_PAYLOAD = new byte[0];
+
     public final int httpStatus;
     /**
      * Human readable reason for the status code, named as described in RFC2616
      */
     public final String reasonPhrase;
-    public final String payload;
+    /**
+     * Lower case header names to values, the last one for repeated headers, see
+     * {@link #getHeaders(String)} for all of them
+     */
     public final Map<String, String> headers;
+    /**
+     * Used to decode the payload, UTF-8 if the response did not name a charset
+     */
+    public final Charset charset;
+    /**
+     * Length of the body as received, also known if the body was discarded
+     */
+    public final long bytesReceived;
+    private final byte[] payloadBytes;
+    private final File payloadFile;
+    private final Headers allHeaders;
+    private volatile String payload;
+    private volatile boolean released;
 
+    /**
+     * @param httpStatus
+     * @param reasonPhrase
+     * @param payload response body, <code>null</code> for a response without one
+     * @param headers
+     */
     public ApiResponse(
             int httpStatus,
             String reasonPhrase,
             String payload,
             Map<String, String> headers) {
+        this(httpStatus, reasonPhrase, payload != null ? payload.getBytes(Consts.UTF_8)
+                : NO_PAYLOAD, Consts.UTF_8, headers);
+        this.payload = payload != null ? payload : "";
+    }
+
+    /**
+     * @param httpStatus
+     * @param reasonPhrase
+     * @param payloadBytes raw response body, not copied
+     * @param charset to decode the body with, UTF-8 if <code>null</code>
+     * @param headers
+     */
+    public ApiResponse(
+            int httpStatus,
+            String reasonPhrase,
+            byte[] payloadBytes,
+            Charset charset,
+            Map<String, String> headers) {
+        this(httpStatus, reasonPhrase, payloadBytes, null, charset, payloadBytes.length, headers);
+    }
+
+    /**
+     * Creates a response whose body was written to a file because it was too large to be kept in
+     * memory, see {@link ApiTestUtil#setPayloadSpillThreshold(long)}.
+     * 
+     * @param httpStatus
+     * @param reasonPhrase
+     * @param payloadFile containing the raw response body
+     * @param charset to decode the body with, UTF-8 if <code>null</code>
+     * @param headers
+     */
+    public ApiResponse(
+            int httpStatus,
+            String reasonPhrase,
+            File payloadFile,
+            Charset charset,
+            Map<String, String> headers) {
+        this(httpStatus, reasonPhrase, null, payloadFile, charset, payloadFile.length(), headers);
+    }
+
+    /**
+     * Creates a response whose body was discarded, see {@link ResponseMode#DISCARD_BODY}.
+     * 
+     * @param httpStatus
+     * @param reasonPhrase
+     * @param bytesReceived length of the discarded body
+     * @param headers
+     */
+    public ApiResponse(
+            int httpStatus,
+            String reasonPhrase,
+            long bytesReceived,
+            Map<String, String> headers) {
+        this(httpStatus, reasonPhrase, null, null, null, bytesReceived, headers);
+    }
+
+    private ApiResponse(
+            int httpStatus,
+            String reasonPhrase,
+            byte[] payloadBytes,
+            File payloadFile,
+            Charset charset,
+            long bytesReceived,
+            Map<String, String> headers) {
         this.httpStatus = httpStatus;
         this.reasonPhrase = reasonPhrase;
-        this.payload = payload;
-        this.headers = ImmutableMap.copyOf(headers);
+        this.payloadBytes = payloadBytes;
+        this.payloadFile = payloadFile;
+        this.charset = charset != null ? charset : Consts.UTF_8;
+        this.bytesReceived = bytesReceived;
+        this.allHeaders = Headers.of(headers);
+        this.headers = allHeaders;
+    }
+
+    /**
+     * Tells whether the body was discarded, in which case it can not be read.
+     * 
+     * @return
+     */
+    public boolean isPayloadDiscarded() {
+        return payloadBytes == null && payloadFile == null;
+    }
+
+    /**
+     * The temporary file the body was written to if it was larger than the spill threshold, see
+     * {@link ApiTestUtil#setPayloadSpillThreshold(long)}. It is deleted by {@link #release()},
+     * or else some time after the response was garbage collected, at the latest when the JVM
+     * exits.
+     * 
+     * @return the file, or null if the body is kept in memory
+     */
+    public File getPayloadFile() {
+        return payloadFile;
+    }
+
+    /**
+     * Deletes the temporary file the body was written to, if any, rather than waiting for the
+     * response to be garbage collected. The body can not be read from the file afterwards. Files
+     * passed to {@link #ApiResponse(int, String, File, Charset, Map)} by the caller are not
+     * deleted. Does nothing for bodies kept in memory.
+     */
+    public void release() {
+        if (payloadFile != null) {
+            released = true;
+            PayloadFiles.release(payloadFile);
+        }
+    }
+
+    /**
+     * The response body as string, decoded on the first call. For bodies written to a file this
+     * reads the whole file into memory, use {@link #getPayloadStream()} or
+     * {@link #payloadJsonAs(Class)} instead.
+     * 
+     * @return the payload, empty if the response had no body
+     * @throws IllegalStateException if the body was discarded or could not be read
+     */
+    public String getPayload() {
+        String decoded = payload;
+        if (decoded == null) {
+            checkPayloadKept();
+            if (payloadFile != null) {
+                try {
+                    decoded = FileUtils.readFileToString(payloadFile, charset);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not read payload from " + payloadFile,
+                            e);
+                }
+            } else {
+                decoded = new String(payloadBytes, charset);
+            }
+            payload = decoded;
+        }
+        return decoded;
+    }
+
+    /**
+     * The response body as received. The array is not copied, so it must not be modified. For
+     * bodies written to a file, a new array is read from it on each call.
+     * 
+     * @return the raw payload, empty if the response had no body
+     * @throws IllegalStateException if the body was discarded or could not be read
+     */
+    public byte[] getPayloadBytes() {
+        checkPayloadKept();
+        if (payloadFile != null) {
+            try {
+                return FileUtils.readFileToByteArray(payloadFile);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read payload from " + payloadFile, e);
+            }
+        }
+        return payloadBytes;
+    }
+
+    /**
+     * Opens a new stream of the raw response body, whether it is kept in memory or in a file. The
+     * caller has to close it.
+     * 
+     * @return
+     * @throws IOException
+     * @throws IllegalStateException if the body was discarded
+     */
+    public InputStream getPayloadStream() throws IOException {
+        checkPayloadKept();
+        if (payloadFile != null) {
+            return new BufferedInputStream(new FileInputStream(payloadFile), FILE_BUFFER_SIZE);
+        }
+        return new ByteArrayInputStream(payloadBytes);
     }
 
     /**
      * Assumes that the payload of the response is valid JSON and tries to convert it to the given
-     * type.
+     * type with the shared {@link ApiTesterModule#getJsonCodec()}. Parses the raw body directly,
+     * also if it was written to a file.
      * 
      * @param type
      * @return
      */
     public <DTO> DTO payloadJsonAs(Class<DTO> type) {
-        return new Gson().fromJson(payload, type);
+        return payloadJsonAs((Type) type);
     }
 
     public <DTO> DTO payloadJsonAs(TypeReference<DTO> typeReference) {
-        return new Gson().fromJson(payload, typeReference.getType());
+        return payloadJsonAs(typeReference.getType());
+    }
+
+    private <DTO> DTO payloadJsonAs(Type type) {
+        try {
+            Reader reader = openPayloadReader();
+            try {
+                return ApiTesterModule.getJsonCodec().<DTO> fromJson(reader, type);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    /**
+     * Selects the first value at the given path from the JSON payload, parsing only as much of it
+     * as needed, see {@link JsonPath}.
+     * 
+     * @param path e.g. <code>$.items[0].id</code>
+     * @return the value, {@link com.google.gson.JsonNull} if it is null, or <code>null</code> if
+     *         there is no value at the path
+     */
+    public JsonElement payloadJsonPath(String path) {
+        List<JsonElement> matches = selectJson(path, 1);
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    /**
+     * Selects all values matching the given path from the JSON payload, without binding the rest
+     * of it, see {@link JsonPath}.
+     * 
+     * @param path e.g. <code>$.items[*].id</code>
+     * @return the values in document order, empty if there are none
+     */
+    public List<JsonElement> payloadJsonPathAll(String path) {
+        return selectJson(path, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #payloadJsonPath(String)}, converting the value to the given type with the
+     * shared {@link ApiTesterModule#getJsonCodec()}.
+     * 
+     * @param path
+     * @param type
+     * @return the converted value, or <code>null</code> if there is no value at the path
+     */
+    public <T> T payloadJsonPathAs(String path, Class<T> type) {
+        JsonElement value = payloadJsonPath(path);
+        return value != null ? ApiTesterModule.getJsonCodec().<T> fromJson(value.toString(), type)
+                : null;
+    }
+
+    private List<JsonElement> selectJson(String path, int limit) {
+        JsonPath jsonPath = JsonPath.compile(path);
+        try {
+            Reader reader = openPayloadReader();
+            try {
+                return jsonPath.select(reader, limit);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    /**
+     * Reads the payload string if it has been decoded already, the raw payload otherwise.
+     */
+    private Reader openPayloadReader() throws IOException {
+        String decoded = payload;
+        if (decoded != null) {
+            return new StringReader(decoded);
+        }
+        return new InputStreamReader(getPayloadStream(), charset);
+    }
+
+    private void checkPayloadKept() {
+        if (isPayloadDiscarded()) {
+            throw new IllegalStateException("Payload was discarded, see ResponseMode");
+        }
+        if (released) {
+            throw new IllegalStateException("Payload file was released");
+        }
     }
 
     /**
@@ -139,6 +436,16 @@ public class ApiResponse {
      * @return The value, or null if no header with that name was found
      */
     public String getHeader(String name) {
-        return headers.get(name.toLowerCase());
+        return allHeaders.getLast(name);
+    }
+
+    /**
+     * Get all values of the header with the given name, e.g. of repeated Set-Cookie headers
+     * 
+     * @param name The name of the header, case insensitive
+     * @return The values in the order received, empty if no header with that name was found
+     */
+    public List<String> getHeaders(String name) {
+        return allHeaders.getAll(name);
     }
 }
@@ -16,6 +16,7 @@ package de.devbliss.apitester;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.List;
 import java.util.Map;
 
 import com.google.inject.Inject;
@@ -80,6 +81,7 @@ public class ApiTest {
     private PutFactory putDefaultFactory;
     private PatchFactory patchDefaultFactory;
     private TestState testState;
+    private ResponseMode responseMode = ResponseMode.FULL;
 
     public enum HTTP_REQUEST {
         POST, GET, PUT, DELETE, PATCH;
@@ -123,6 +125,42 @@ public class ApiTest {
         return testState;
     }
 
+    public ResponseMode getResponseMode() {
+        return responseMode;
+    }
+
+    /**
+     * Sets what is kept of the responses to all following requests of this instance, e.g.
+     * {@link ResponseMode#DISCARD_BODY} for load tests that do not look at the payload. Default is
+     * {@link ResponseMode#FULL}.
+     *
+     * @param responseMode
+     */
+    public void setResponseMode(ResponseMode responseMode) {
+        this.responseMode = responseMode;
+    }
+
+    /**
+     * Returns an instance sharing the {@link TestState} and factories of this one, but using the
+     * given {@link ResponseMode}, to choose the mode for single calls:
+     * <code>apiTest.withResponseMode(ResponseMode.DISCARD_BODY).get(uri)</code>. Calling
+     * {@link #shutdown()} on the returned instance shuts down the shared state.
+     *
+     * @param responseMode
+     * @return
+     */
+    public ApiTest withResponseMode(ResponseMode responseMode) {
+        ApiTest apiTest = new ApiTest();
+        apiTest.getDefaultFactory = getDefaultFactory;
+        apiTest.postDefaultFactory = postDefaultFactory;
+        apiTest.deleteDefaultFactory = deleteDefaultFactory;
+        apiTest.putDefaultFactory = putDefaultFactory;
+        apiTest.patchDefaultFactory = patchDefaultFactory;
+        apiTest.testState = getTestState();
+        apiTest.responseMode = responseMode;
+        return apiTest;
+    }
+
     private DeleteFactory getDefaultDeleteFactory() {
         if (deleteDefaultFactory == null) {
             setDefaultDeleteFactory(ApiTesterModule.createDeleteFactory());
@@ -203,7 +241,7 @@ public class ApiTest {
      * @throws IOException
      */
     public Context post(URI uri, Object payload, PostFactory postFactory, Map<String, String> additionalHeaders) throws IOException {
-        return Poster.post(uri, payload, getTestState(), postFactory, additionalHeaders);
+        return Poster.post(uri, payload, getTestState(), postFactory, additionalHeaders, responseMode);
     }
 
     /**
@@ -244,7 +282,7 @@ public class ApiTest {
      * @throws IOException
      */
     public Context get(URI uri, GetFactory getFactory, Map<String, String> additionalHeaders) throws IOException {
-        return Getter.get(uri, getTestState(), getFactory, additionalHeaders);
+        return Getter.get(uri, getTestState(), getFactory, additionalHeaders, responseMode);
     }
 
     /**
@@ -315,7 +353,7 @@ public class ApiTest {
      * @throws IOException
      */
     public Context delete(URI uri, Object payload, DeleteFactory deleteFactory, Map<String, String> additionalHeaders) throws IOException {
-        return Deleter.delete(uri, getTestState(), deleteFactory, payload, additionalHeaders);
+        return Deleter.delete(uri, getTestState(), deleteFactory, payload, additionalHeaders, responseMode);
     }
 
     /**
@@ -386,7 +424,7 @@ public class ApiTest {
      * @throws IOException
      */
     public Context put(URI uri, Object payload, PutFactory putFactory, Map<String, String> additionalHeaders) throws IOException {
-        return Putter.put(uri, getTestState(), putFactory, payload, additionalHeaders);
+        return Putter.put(uri, getTestState(), putFactory, payload, additionalHeaders, responseMode);
     }
 
     /**
@@ -456,7 +494,43 @@ public class ApiTest {
      * @throws IOException
      */
     public Context patch(URI uri, Object payload, PatchFactory patchFactory, Map<String, String> additionalHeaders) throws IOException {
-        return Patcher.patch(uri, getTestState(), patchFactory, payload, additionalHeaders);
+        return Patcher.patch(uri, getTestState(), patchFactory, payload, additionalHeaders, responseMode);
+    }
+
+    /**
+     * Sends all given requests with the default factories and the {@link TestState} of this
+     * instance, with the default {@link BatchConfig}, see
+     * {@link #executeAll(List, BatchConfig)}.
+     *
+     * @param requests
+     * @return the results in the order of the requests
+     * @throws BatchException if any request failed
+     * @throws IOException
+     */
+    public List<Context> executeAll(List<RequestSpec> requests) throws IOException {
+        return executeAll(requests, new BatchConfig());
+    }
+
+    /**
+     * Sends all given requests with the default factories and the {@link TestState} of this
+     * instance, up to {@link BatchConfig#getParallelism()} at the same time. All requests share
+     * the connections and cookies of the state, so with a parallelism above 1 the state must be
+     * safe for concurrent use, e.g. one created with
+     * {@link ApiTesterModule#createPooledTestState()}. The state of a new instance holds a single
+     * connection only, so its requests are sent one after another unless a pooled state is set.
+     *
+     * Requests are started in the order given, but with a parallelism above 1 they may complete in
+     * any order. Use separate batches if a request depends on the result of another one.
+     *
+     * @param requests
+     * @param config
+     * @return the results in the order of the requests
+     * @throws BatchException if any request failed, holding the results of the others
+     * @throws IOException
+     */
+    public List<Context> executeAll(List<RequestSpec> requests, BatchConfig config)
+            throws IOException {
+        return Batch.execute(this, requests, config);
     }
 
     /**
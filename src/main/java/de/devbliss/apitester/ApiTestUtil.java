@@ -16,20 +16,38 @@ package de.devbliss.apitester;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import org.HdrHistogram.Histogram;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
+import org.apache.http.ParseException;
+import org.apache.http.client.CookieStore;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.util.EntityUtils;
 
 /**
  * Some helper methods for api testing.
@@ -39,6 +57,19 @@ import org.apache.http.HttpResponse;
  */
 public class ApiTestUtil {
 
+    public static final long DEFAULT_PAYLOAD_SPILL_THRESHOLD = 32 * 1024 * 1024;
+
+    private static final byte[] NO_PAYLOAD = new byte[0];
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+    private static volatile long payloadSpillThreshold = DEFAULT_PAYLOAD_SPILL_THRESHOLD;
+    private static final ThreadLocal<byte[]> DISCARD_BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[8192];
+        }
+    };
+
     /**
      * Shortcut to assert that a given response has a certain HTTP status.
      * 
@@ -113,7 +144,103 @@ public class ApiTestUtil {
     }
 
     /**
-     * Transforms an {@link HttpResponse} object to an {@link ApiResponse}
+     * Asserts that the request of the given context took less than the given time, from sending it
+     * until its response was read.
+     * 
+     * @param context
+     * @param max
+     * @param unit
+     */
+    public static void assertLatencyBelow(Context context, long max, TimeUnit unit) {
+        assertTrue("Context has no elapsed time", context.elapsedNanos >= 0);
+        assertTrue("Request to " + context.apiRequest.uri + " took "
+                + toMillis(context.elapsedNanos) + " ms, expected less than "
+                + toMillis(unit.toNanos(max)) + " ms, " + context.timings,
+                context.elapsedNanos < unit.toNanos(max));
+    }
+
+    /**
+     * Shortcut for {@link #assertLatencyBelow(Context, long, TimeUnit)} in milliseconds.
+     * 
+     * @param context
+     * @param maxMillis
+     */
+    public static void assertLatencyBelow(Context context, long maxMillis) {
+        assertLatencyBelow(context, maxMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Asserts that the given percentile of the latencies recorded for an endpoint is at most the
+     * given time. The failure message contains the whole percentile distribution.
+     * 
+     * @param stats e.g. from {@link ApiTesterModule#getLatencyStats()}
+     * @param percentile between 0 and 100, e.g. 99.9
+     * @param max
+     * @param unit
+     */
+    public static void assertPercentile(EndpointStats stats, double percentile, long max,
+            TimeUnit unit) {
+        assertPercentile(stats.getEndpoint(), stats.getHistogram(), percentile, max, unit);
+    }
+
+    /**
+     * Asserts that the given percentile of the latencies of a load test is at most the given time.
+     * The failure message contains the whole percentile distribution.
+     * 
+     * @param summary
+     * @param percentile between 0 and 100, e.g. 99.9
+     * @param max
+     * @param unit
+     */
+    public static void assertPercentile(LoadSummary summary, double percentile, long max,
+            TimeUnit unit) {
+        assertPercentile("Load test", summary.getLatency(), percentile, max, unit);
+    }
+
+    /**
+     * Asserts that a load test ran at least the given number of iterations per second.
+     * 
+     * @param summary
+     * @param minPerSecond
+     */
+    public static void assertThroughputAtLeast(LoadSummary summary, double minPerSecond) {
+        assertTrue("Throughput was " + String.format("%.1f", summary.getThroughput())
+                + "/s, expected at least " + minPerSecond + "/s, " + summary,
+                summary.getThroughput() >= minPerSecond);
+    }
+
+    /**
+     * Asserts that at most the given share of the iterations of a load test failed.
+     * 
+     * @param summary
+     * @param maxErrorRate between 0 and 1, e.g. 0.01 for one percent
+     */
+    public static void assertErrorRateAtMost(LoadSummary summary, double maxErrorRate) {
+        assertTrue("Error rate was " + summary.getErrorRate() + ", expected at most "
+                + maxErrorRate + ", " + summary + ", first failures: " + summary.getFailures(),
+                summary.getErrorRate() <= maxErrorRate);
+    }
+
+    private static void assertPercentile(String name, Histogram histogram, double percentile,
+            long max, TimeUnit unit) {
+        long value = histogram.getValueAtPercentile(percentile);
+        if (value > unit.toNanos(max)) {
+            ByteArrayOutputStream distribution = new ByteArrayOutputStream();
+            histogram.outputPercentileDistribution(new PrintStream(distribution, true), 5,
+                    NANOS_PER_MILLI);
+            fail(name + ": p" + percentile + " was " + toMillis(value)
+                    + " ms, expected at most " + toMillis(unit.toNanos(max)) + " ms over "
+                    + histogram.getTotalCount() + " requests\n" + distribution);
+        }
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format("%.3f", nanos / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Transforms an {@link HttpResponse} object to an {@link ApiResponse}. The body is read
+     * completely but not decoded, see {@link ApiResponse#getPayload()}.
      * 
      * @param httpResponse
      * @param cookies
@@ -121,27 +248,176 @@ public class ApiTestUtil {
      * @throws IOException
      */
     public static ApiResponse convertToApiResponse(HttpResponse httpResponse) throws IOException {
+        return convertToApiResponse(httpResponse, ResponseMode.FULL);
+    }
+
+    /**
+     * Transforms an {@link HttpResponse} object to an {@link ApiResponse}, keeping the body only
+     * if the given mode says so.
+     * 
+     * @param httpResponse
+     * @param responseMode {@link ResponseMode#FULL} if <code>null</code>
+     * @return
+     * @throws IOException
+     */
+    public static ApiResponse convertToApiResponse(HttpResponse httpResponse,
+            ResponseMode responseMode) throws IOException {
         int httpStatus = httpResponse.getStatusLine().getStatusCode();
         HttpEntity entity = httpResponse.getEntity();
-        String rawResponse = entity != null ? IOUtils.toString(entity.getContent()) : "";
 
-        return new ApiResponse(httpStatus, httpResponse.getStatusLine().getReasonPhrase(),
-                rawResponse, transformHeaders(httpResponse.getAllHeaders()));
+        if (responseMode == ResponseMode.DISCARD_BODY) {
+            return new ApiResponse(httpStatus, httpResponse.getStatusLine().getReasonPhrase(),
+                    entity != null ? discard(entity) : 0,
+                    transformHeaders(httpResponse.getAllHeaders()));
+        }
+
+        String reasonPhrase = httpResponse.getStatusLine().getReasonPhrase();
+        Map<String, String> headers = transformHeaders(httpResponse.getAllHeaders());
+
+        if (entity == null) {
+            return new ApiResponse(httpStatus, reasonPhrase, NO_PAYLOAD, null, headers);
+        }
+
+        Charset charset = getCharset(entity);
+        long threshold = payloadSpillThreshold;
+        long contentLength = entity.getContentLength();
+
+        if (contentLength >= 0 && contentLength <= threshold) {
+            byte[] rawResponse = EntityUtils.toByteArray(entity);
+            return new ApiResponse(httpStatus, reasonPhrase,
+                    rawResponse != null ? rawResponse : NO_PAYLOAD, charset, headers);
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        File payloadFile = readContent(entity, buffer, threshold);
+
+        if (payloadFile != null) {
+            ApiResponse apiResponse = new ApiResponse(httpStatus, reasonPhrase, payloadFile,
+                    charset, headers);
+            PayloadFiles.track(apiResponse);
+            return apiResponse;
+        }
+        return new ApiResponse(httpStatus, reasonPhrase, buffer.toByteArray(), charset, headers);
     }
 
     /**
-     * transform the original headers from the request or response to a map
-     * and set the name of the headers to lower case
+     * Sets the size above which response bodies are written to a temporary file instead of being
+     * kept in memory, see {@link ApiResponse#getPayloadFile()}. Applies to all responses
+     * converted afterwards. Default is {@value #DEFAULT_PAYLOAD_SPILL_THRESHOLD} bytes.
+     * 
+     * @param payloadSpillThreshold in bytes
+     */
+    public static void setPayloadSpillThreshold(long payloadSpillThreshold) {
+        ApiTestUtil.payloadSpillThreshold = payloadSpillThreshold;
+    }
+
+    public static long getPayloadSpillThreshold() {
+        return payloadSpillThreshold;
+    }
+
+    /**
+     * Reads the content of the entity into the given buffer, switching to a temporary file as
+     * soon as more than threshold bytes have been read, or right away if the entity says it is
+     * larger than that. Closes the content.
+     * 
+     * @param entity
+     * @param buffer
+     * @param threshold
+     * @return the file, or null if the whole content is in the buffer
+     * @throws IOException
+     */
+    private static File readContent(HttpEntity entity, ByteArrayOutputStream buffer,
+            long threshold) throws IOException {
+        InputStream content = entity.getContent();
+        if (content == null) {
+            return null;
+        }
+
+        File file = null;
+        OutputStream out = buffer;
+        try {
+            if (entity.getContentLength() > threshold) {
+                file = PayloadFiles.create();
+                out = new BufferedOutputStream(new FileOutputStream(file), FILE_BUFFER_SIZE);
+            }
+
+            byte[] chunk = new byte[FILE_BUFFER_SIZE];
+            long length = 0;
+            int read;
+            while ((read = content.read(chunk)) != -1) {
+                length += read;
+                if (file == null && length > threshold) {
+                    file = PayloadFiles.create();
+                    out = new BufferedOutputStream(new FileOutputStream(file), FILE_BUFFER_SIZE);
+                    buffer.writeTo(out);
+                    buffer.reset();
+                }
+                out.write(chunk, 0, read);
+            }
+            out.close();
+            return file;
+        } catch (IOException e) {
+            if (file != null) {
+                IOUtils.closeQuietly(out);
+                file.delete();
+            }
+            throw e;
+        } finally {
+            content.close();
+        }
+    }
+
+    /**
+     * Reads the content of the entity into a buffer reused by the current thread and closes it.
+     * 
+     * @param entity
+     * @return the number of bytes read
+     * @throws IOException
+     */
+    private static long discard(HttpEntity entity) throws IOException {
+        InputStream content = entity.getContent();
+        if (content == null) {
+            return 0;
+        }
+
+        byte[] buffer = DISCARD_BUFFER.get();
+        long length = 0;
+        try {
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                length += read;
+            }
+        } finally {
+            content.close();
+        }
+        return length;
+    }
+
+    /**
+     * The charset named by the Content-Type of the entity
+     * 
+     * @param entity
+     * @return the charset, or null if none is given or it is not supported
+     */
+    private static Charset getCharset(HttpEntity entity) {
+        try {
+            ContentType contentType = ContentType.get(entity);
+            return contentType != null ? contentType.getCharset() : null;
+        } catch (ParseException e) {
+            return null;
+        } catch (UnsupportedCharsetException e) {
+            return null;
+        }
+    }
+
+    /**
+     * wrap the original headers from the request or response, which are not copied
      * 
      * @param headers
      * @return transformedHeaders
      */
-    private static Map<String, String> transformHeaders(Header[] headers) {
-        Map<String, String> transformedHeaders = new HashMap<String, String>();
-        for (Header header : headers) {
-            transformedHeaders.put(header.getName().toLowerCase(Locale.ENGLISH), header.getValue());
-        }
-        return transformedHeaders;
+    private static Headers transformHeaders(Header[] headers) {
+        return new Headers(headers);
     }
 
     /**
@@ -162,6 +438,30 @@ public class ApiTestUtil {
                 transformHeaders(httpRequest.getAllHeaders()), transformCookies(cookies));
     }
 
+    /**
+     * Like {@link #convertToApiRequest(URI, HttpRequest, List)}, but takes the cookies straight
+     * from the store the request will be sent with. Must be called before sending it, as the
+     * response could change the cookies. Headers and cookies are converted only when they are read
+     * from the {@link ApiRequest}, so the cookies are only copied if the store does not return a
+     * snapshot of them already, as {@link CopyOnWriteCookieStore} does.
+     * 
+     * @param uri
+     * @param httpRequest
+     * @param cookieStore
+     * @return
+     */
+    public static ApiRequest convertToApiRequest(URI uri, HttpRequest httpRequest,
+            CookieStore cookieStore) {
+        List<org.apache.http.cookie.Cookie> cookies = cookieStore.getCookies();
+        if (!(cookieStore instanceof CopyOnWriteCookieStore)
+                && !(cookieStore instanceof BasicCookieStore)) {
+            // unknown stores might return a live view
+            cookies = new ArrayList<org.apache.http.cookie.Cookie>(cookies);
+        }
+        return new ApiRequest(uri, httpRequest.getRequestLine().getMethod(),
+                transformHeaders(httpRequest.getAllHeaders()), cookies);
+    }
+
     /**
      * transform a list of {@link Cookie} to a {@link Map} and set the name of the cookies to lower
      * case
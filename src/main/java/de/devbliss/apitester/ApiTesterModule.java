@@ -14,9 +14,28 @@
 
 package de.devbliss.apitester;
 
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
 import org.apache.http.client.CookieStore;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.impl.client.BasicCookieStore;
-import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
@@ -33,6 +52,10 @@ import de.devbliss.apitester.factory.impl.DefaultGetFactory;
 import de.devbliss.apitester.factory.impl.DefaultPatchFactory;
 import de.devbliss.apitester.factory.impl.DefaultPostFactory;
 import de.devbliss.apitester.factory.impl.DefaultPutFactory;
+import de.devbliss.apitester.json.JsonCodec;
+import de.devbliss.apitester.json.impl.GsonJsonCodec;
+import de.devbliss.apitester.transport.Transport;
+import de.devbliss.apitester.transport.impl.HttpClientTransport;
 
 /**
  * Binds all dependencies of ApiTester.
@@ -42,6 +65,8 @@ import de.devbliss.apitester.factory.impl.DefaultPutFactory;
  */
 public class ApiTesterModule extends AbstractModule {
 
+    private static volatile JsonCodec jsonCodec = new GsonJsonCodec();
+    private static volatile LatencyStats latencyStats = new LatencyStats();
     private static final Injector injector = Guice.createInjector(new ApiTesterModule());
 
     @Override
@@ -51,7 +76,7 @@ public class ApiTesterModule extends AbstractModule {
         bind(PostFactory.class).to(DefaultPostFactory.class);
         bind(PutFactory.class).to(DefaultPutFactory.class);
         bind(PatchFactory.class).to(DefaultPatchFactory.class);
-        bind(CookieStore.class).to(BasicCookieStore.class);
+        bind(CookieStore.class).to(CopyOnWriteCookieStore.class);
     }
 
     @Provides
@@ -64,9 +89,70 @@ public class ApiTesterModule extends AbstractModule {
         // could have a cookie store injected, and a client injected, but it wouldn't be the
         // cookie store for that client. So, we can't have Guice manage them. Instead, we
         // have Guice manage the TestState, not singleton, and instantiate the client ourselves.
-        DefaultHttpClient client = new DefaultHttpClient();
-        client.setCookieStore(cookieStore);
-        return new TestState(client, cookieStore);
+        // a single connection, like the DefaultHttpClient this used to be, measuring the same
+        // phases as a pooled client except for the wait for the pool
+        CloseableHttpClient client = HttpClientBuilder.create()
+                .setConnectionManager(new BasicHttpClientConnectionManager(
+                        createPhaseTimingSocketFactories(), null, null,
+                        PhaseTimingDnsResolver.INSTANCE))
+                .setRequestExecutor(new PhaseTimingRequestExecutor())
+                .setDefaultCookieStore(cookieStore)
+                .build();
+        TestState testState = new TestState(client, cookieStore);
+        testState.setSingleConnection(true);
+        return testState;
+    }
+
+    @Provides
+    public JsonCodec provideJsonCodec() {
+        return jsonCodec;
+    }
+
+    /**
+     * The {@link JsonCodec} shared by the default factories and
+     * {@link ApiResponse#payloadJsonAs(Class)}. It is created once, so type adapters and
+     * reflection metadata of the DTO classes are kept between calls.
+     *
+     * @return
+     */
+    public static JsonCodec getJsonCodec() {
+        return jsonCodec;
+    }
+
+    /**
+     * Replaces the shared {@link JsonCodec}, e.g. with a {@link GsonJsonCodec} using a customized
+     * {@link com.google.gson.Gson}. Factories created before keep the codec they got.
+     *
+     * @param jsonCodec
+     */
+    public static void setJsonCodec(JsonCodec jsonCodec) {
+        ApiTesterModule.jsonCodec = jsonCodec;
+    }
+
+    /**
+     * The {@link LatencyStats} every request sent by the verbs and by {@link AsyncApiTest} is
+     * recorded into.
+     *
+     * @return null if recording is switched off
+     */
+    public static LatencyStats getLatencyStats() {
+        return latencyStats;
+    }
+
+    /**
+     * Replaces the shared {@link LatencyStats}, e.g. with a fresh instance for each test.
+     *
+     * @param latencyStats null switches recording off
+     */
+    public static void setLatencyStats(LatencyStats latencyStats) {
+        ApiTesterModule.latencyStats = latencyStats;
+    }
+
+    static void recordLatency(String method, URI uri, long nanos, PhaseTimings timings) {
+        LatencyStats stats = latencyStats;
+        if (stats != null) {
+            stats.record(method, uri, nanos, timings);
+        }
     }
 
     /**
@@ -127,4 +213,174 @@ public class ApiTesterModule extends AbstractModule {
     public static TestState createTestState() {
         return injector.getInstance(TestState.class);
     }
+
+    /**
+     * Creates an instance of the HTTP state sending its requests with the given {@link Transport},
+     * e.g. to use another HTTP engine than the default one. The transport is shut down together
+     * with the state.
+     *
+     * @param transport
+     * @return
+     */
+    public static TestState createTestState(Transport transport) {
+        return new TestState(transport, createCookieStore());
+    }
+
+    /**
+     * Creates an instance of the default implementation of {@link CookieStore} as it is bound in
+     * this module.
+     *
+     * @return
+     */
+    public static CookieStore createCookieStore() {
+        return injector.getInstance(CookieStore.class);
+    }
+
+    /**
+     * Creates an instance of the HTTP state using a connection pool with default settings, see
+     * {@link #createPooledTestState(ConnectionPoolConfig)}.
+     *
+     * @return
+     */
+    public static TestState createPooledTestState() {
+        return createPooledTestState(new ConnectionPoolConfig());
+    }
+
+    /**
+     * Creates an instance of the HTTP state whose client keeps connections alive in a pool
+     * configured by the given {@link ConnectionPoolConfig}. Unlike the state returned by
+     * {@link #createTestState()}, the resulting {@link TestState} may be used by several threads at
+     * the same time. Note that all these threads share the same cookies.
+     *
+     * @param config
+     * @return
+     */
+    public static TestState createPooledTestState(ConnectionPoolConfig config) {
+        CookieStore cookieStore = createCookieStore();
+        return new TestState(buildPooledClient(config, cookieStore), cookieStore);
+    }
+
+    /**
+     * Creates an instance of the HTTP state that shares the transport, and with it the connection
+     * pool, of the given state, but has its own cookies. Use this to simulate many independent
+     * users with a single pooled client, see {@link SessionRunner}. The returned state starts with
+     * the {@link RequestInterceptor}s of the given state. Calling {@link TestState#shutdown()} on
+     * the returned state does nothing, shut down the given state instead.
+     *
+     * @param testState
+     * @return
+     */
+    public static TestState createTestStateSharingClient(TestState testState) {
+        TestState sharing = new TestState(testState.transport, createCookieStore(), true);
+        sharing.setInterceptors(testState.getInterceptorArray());
+        sharing.setSingleConnection(testState.isSingleConnection());
+        return sharing;
+    }
+
+    /**
+     * Creates an instance of the HTTP state that uses the client shared by all static methods of
+     * {@link Getter}, {@link Poster}, {@link Putter}, {@link Patcher} and {@link Deleter} when they
+     * are called without a {@link TestState}. Connections are kept alive and reused between all
+     * these states, but each of them has its own cookies. The shared client is created on first
+     * use and closed when the JVM exits, so {@link TestState#shutdown()} does nothing for these
+     * states.
+     *
+     * @return
+     */
+    public static TestState createSharedTestState() {
+        return new TestState(SharedClient.TRANSPORT, createCookieStore(), true);
+    }
+
+    /**
+     * Statistics of the client behind {@link #createSharedTestState()}.
+     *
+     * @return
+     */
+    public static ConnectionStats getSharedConnectionStats() {
+        return SharedClient.STATS;
+    }
+
+    private static Registry<ConnectionSocketFactory> createPhaseTimingSocketFactories() {
+        return RegistryBuilder.<ConnectionSocketFactory> create()
+                .register("http", PhaseTimingSocketFactory.INSTANCE)
+                .register("https", new PhaseTimingSslSocketFactory())
+                .build();
+    }
+
+    static CloseableHttpClient buildPooledClient(ConnectionPoolConfig config,
+            CookieStore cookieStore) {
+        return buildPooledClient(config, cookieStore, null);
+    }
+
+    static CloseableHttpClient buildPooledClient(ConnectionPoolConfig config,
+            CookieStore cookieStore, final ConnectionStats stats) {
+        HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> connectionFactory =
+                ManagedHttpClientConnectionFactory.INSTANCE;
+
+        if (stats != null) {
+            connectionFactory = new HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection>() {
+                public ManagedHttpClientConnection create(HttpRoute route, ConnectionConfig config) {
+                    stats.connectionOpened();
+                    return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+                }
+            };
+        }
+
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(createPhaseTimingSocketFactories(),
+                        connectionFactory, null, PhaseTimingDnsResolver.INSTANCE,
+                        config.getConnectionTtlMillis(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(config.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(config.getMaxPerRoute());
+        connectionManager.setValidateAfterInactivity(config.getValidateAfterInactivityMillis());
+
+        HttpClientBuilder builder = HttpClientBuilder.create()
+                .setConnectionManager(new LeaseGatedConnectionManager(connectionManager))
+                .setRequestExecutor(new PhaseTimingRequestExecutor())
+                .setDefaultCookieStore(cookieStore);
+
+        if (stats != null) {
+            builder.addInterceptorLast(new HttpRequestInterceptor() {
+                public void process(HttpRequest request, HttpContext context)
+                        throws HttpException, IOException {
+                    stats.requestSent();
+                }
+            });
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Lazy holder for the client behind {@link ApiTesterModule#createSharedTestState()}.
+     */
+    private static class SharedClient {
+
+        static final ConnectionStats STATS = new ConnectionStats();
+        static final CloseableHttpClient CLIENT = buildPooledClient(createConfig(),
+                new BasicCookieStore(), STATS);
+        static final Transport TRANSPORT = new HttpClientTransport(CLIENT);
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread("apitester-shared-client-shutdown") {
+                @Override
+                public void run() {
+                    try {
+                        CLIENT.close();
+                    } catch (IOException e) {
+                        // JVM is going down anyway
+                    }
+                }
+            });
+        }
+
+        private static ConnectionPoolConfig createConfig() {
+            ConnectionPoolConfig config = new ConnectionPoolConfig();
+            // test suites tend to start and stop servers on the same port all the time, so a
+            // pooled connection may point to a server that is gone although it was used a few
+            // milliseconds ago
+            config.setValidateAfterInactivityMillis(1);
+            return config;
+        }
+    }
 }
@@ -0,0 +1,516 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+import de.devbliss.apitester.PhaseTimings.Phase;
+import de.devbliss.apitester.factory.DeleteFactory;
+import de.devbliss.apitester.factory.GetFactory;
+import de.devbliss.apitester.factory.PatchFactory;
+import de.devbliss.apitester.factory.PostFactory;
+import de.devbliss.apitester.factory.PutFactory;
+
+/**
+ * Non-blocking counterpart of {@link ApiTest}. Requests are sent by a non-blocking HTTP client
+ * whose I/O is handled by a small, fixed number of event loop threads (one by default), so the
+ * number of requests in flight is not limited by the number of threads of the caller. Every method
+ * returns immediately with a {@link ListenableFuture} that completes with the same {@link Context}
+ * the blocking methods would have returned.
+ *
+ * The request factories are used exactly like in {@link ApiTest}, and like there, cookies are kept
+ * for all requests made with the same instance. The {@link ApiRequest} of each {@link Context}
+ * contains the cookies as they were when the request was sent.
+ *
+ * The client hands each response over with its whole body already in memory. It is converted to
+ * an {@link ApiResponse} on a small pool of threads of its own rather than on an event loop
+ * thread, so parsing headers or writing a large body to a file does not hold up the I/O of other
+ * requests. {@link ResponseMode#DISCARD_BODY} and spilling to a file, see
+ * {@link ApiTestUtil#setPayloadSpillThreshold(long)}, therefore only limit what is kept once the
+ * request is done, not what is buffered while it is received.
+ *
+ * Don't forget to call {@link #shutdown()} when you are done, it stops the event loop threads
+ * and the conversion threads.
+ *
+ * The non-blocking client is an optional dependency of ApiTester, so to use this class add
+ * <i>org.apache.httpcomponents:httpasyncclient</i> to your own project.
+ *
+ * @author hschuetz
+ *
+ */
+public class AsyncApiTest {
+
+    public static final int DEFAULT_IO_THREADS = 1;
+
+    static final String CONVERSION_THREAD_PREFIX = "apitester-async-conversion-";
+
+    private final CloseableHttpAsyncClient client;
+    private final ExecutorService conversionExecutor;
+    private final CookieStore cookieStore;
+
+    private GetFactory getDefaultFactory;
+    private PostFactory postDefaultFactory;
+    private DeleteFactory deleteDefaultFactory;
+    private PutFactory putDefaultFactory;
+    private PatchFactory patchDefaultFactory;
+    private volatile ResponseMode responseMode = ResponseMode.FULL;
+
+    /**
+     * Creates an instance with default pool settings and a single event loop thread.
+     */
+    public AsyncApiTest() {
+        this(new ConnectionPoolConfig(), DEFAULT_IO_THREADS);
+    }
+
+    /**
+     * @param config limits of the connection pool. Requests exceeding these limits wait in the
+     *            pool until a connection becomes available, without blocking any thread.
+     *            {@link ConnectionPoolConfig#getValidateAfterInactivityMillis()} is ignored, the
+     *            event loop notices closed connections by itself.
+     * @param ioThreads number of event loop threads
+     */
+    public AsyncApiTest(ConnectionPoolConfig config, int ioThreads) {
+        cookieStore = ApiTesterModule.createCookieStore();
+        HttpAsyncClientBuilder builder = HttpAsyncClientBuilder.create()
+                .setMaxConnTotal(config.getMaxTotal())
+                .setMaxConnPerRoute(config.getMaxPerRoute())
+                .setDefaultCookieStore(cookieStore)
+                .setDefaultIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(ioThreads)
+                        .build());
+
+        if (config.getConnectionTtlMillis() > 0) {
+            builder.setConnectionTimeToLive(config.getConnectionTtlMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        conversionExecutor = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(),
+                new ThreadFactoryBuilder().setNameFormat(CONVERSION_THREAD_PREFIX + "%d")
+                        .setDaemon(true).build());
+        client = builder.build();
+        client.start();
+    }
+
+    @Inject(optional = true)
+    public void setDefaultDeleteFactory(@Named(ApiTest.DELETE_FACTORY) DeleteFactory deleteFactory) {
+        this.deleteDefaultFactory = deleteFactory;
+    }
+
+    @Inject(optional = true)
+    public void setDefaultGetFactory(@Named(ApiTest.GET_FACTORY) GetFactory getFactory) {
+        this.getDefaultFactory = getFactory;
+    }
+
+    @Inject(optional = true)
+    public void setDefaultPostFactory(@Named(ApiTest.POST_FACTORY) PostFactory postFactory) {
+        this.postDefaultFactory = postFactory;
+    }
+
+    @Inject(optional = true)
+    public void setDefaultPutFactory(@Named(ApiTest.PUT_FACTORY) PutFactory putFactory) {
+        this.putDefaultFactory = putFactory;
+    }
+
+    @Inject(optional = true)
+    public void setDefaultPatchFactory(@Named(ApiTest.PATCH_FACTORY) PatchFactory patchFactory) {
+        this.patchDefaultFactory = patchFactory;
+    }
+
+    private DeleteFactory getDefaultDeleteFactory() {
+        if (deleteDefaultFactory == null) {
+            setDefaultDeleteFactory(ApiTesterModule.createDeleteFactory());
+        }
+        return deleteDefaultFactory;
+    }
+
+    private GetFactory getDefaultGetFactory() {
+        if (getDefaultFactory == null) {
+            setDefaultGetFactory(ApiTesterModule.createGetFactory());
+        }
+        return getDefaultFactory;
+    }
+
+    private PostFactory getDefaultPostFactory() {
+        if (postDefaultFactory == null) {
+            setDefaultPostFactory(ApiTesterModule.createPostFactory());
+        }
+        return postDefaultFactory;
+    }
+
+    private PutFactory getDefaultPutFactory() {
+        if (putDefaultFactory == null) {
+            setDefaultPutFactory(ApiTesterModule.createPutFactory());
+        }
+        return putDefaultFactory;
+    }
+
+    private PatchFactory getDefaultPatchFactory() {
+        if (patchDefaultFactory == null) {
+            setDefaultPatchFactory(ApiTesterModule.createPatchFactory());
+        }
+        return patchDefaultFactory;
+    }
+
+    public ResponseMode getResponseMode() {
+        return responseMode;
+    }
+
+    /**
+     * Sets what is kept of the responses to all requests sent after this call, see
+     * {@link ApiTest#setResponseMode(ResponseMode)}.
+     *
+     * @param responseMode
+     */
+    public void setResponseMode(ResponseMode responseMode) {
+        this.responseMode = responseMode;
+    }
+
+    /**
+     * The cookies shared by all requests of this instance.
+     *
+     * @return
+     */
+    public CookieStore getCookieStore() {
+        return cookieStore;
+    }
+
+    /**
+     * Get all the cookies shared by all requests of this instance.
+     *
+     * @return
+     */
+    public List<Cookie> getCookies() {
+        return TestState.getCookies(cookieStore);
+    }
+
+    /**
+     * Sends a get request using the default {@link GetFactory}.
+     *
+     * @param uri
+     * @return
+     * @throws IOException if the request could not be created
+     */
+    public ListenableFuture<Context> get(URI uri) throws IOException {
+        return get(uri, getDefaultGetFactory(), null);
+    }
+
+    /**
+     * Sends a get request using the default {@link GetFactory} with additional headers.
+     *
+     * @param uri
+     * @param additionalHeaders
+     * @return
+     * @throws IOException if the request could not be created
+     */
+    public ListenableFuture<Context> get(URI uri, Map<String, String> additionalHeaders)
+            throws IOException {
+        return get(uri, getDefaultGetFactory(), additionalHeaders);
+    }
+
+    /**
+     * Sends a get request using the given {@link GetFactory} for this call only.
+     *
+     * @param uri
+     * @param getFactory
+     * @param additionalHeaders
+     * @return
+     * @throws IOException if the request could not be created
+     */
+    public ListenableFuture<Context> get(URI uri, GetFactory getFactory,
+            Map<String, String> additionalHeaders) throws IOException {
+        return execute(uri, getFactory.createGetRequest(uri), additionalHeaders);
+    }
+
+    /**
+     * Sends a post request using the default {@link PostFactory}.
+     *
+     * @param uri
+     * @param payload
+     * @return
+     * @throws IOException if the request could not be created
+     */
+    public ListenableFuture<Context> post(URI uri, Object payload) throws IOException {
+        return post(uri, payload, getDefaultPostFactory(), null);
+    }
+
+    /**
+     * Sends a post request using the default {@link PostFactory} with additional headers.
+     *
+     * @param uri
+     * @param payload
+     * @param additionalHeaders
+     * @return
+     * @throws IOException if the request could not be created
+     */
+    public ListenableFuture<Context> post(URI uri, Object payload,
+            Map<String, String> additionalHeaders) throws IOException {
+        return post(uri, payload, getDefaultPostFactory(), additionalHeaders);
+    }
+
+    /**
+     * Sends a post request using the given {@link PostFactory} for this call only.
+     *
+     * @param uri
+     * @param payload
+     * @param postFactory
+     * @param additionalHeaders
+     * @return
+     * @throws IOException if the request could not be created
+     */
+    public ListenableFuture<Context> post(URI uri, Object payload, PostFactory postFactory,
+            Map<String, String> additionalHeaders) throws IOException {
+        return execute(uri, postFactory.createPostRequest(uri, payload), additionalHeaders);
+    }
+
+    /**
+     * Sends a put request using the default {@link PutFactory}.
+     *
+     * @param uri
+     * @param payload
+     * @return
+     * @throws IOException if the request could not be created
+     */
+    public ListenableFuture<Context> put(URI uri, Object payload) throws IOException {
+        return put(uri, payload, getDefaultPutFactory(), null);
+    }
+
+    /**
+     * Sends a put request using the default {@link PutFactory} with additional headers.
+     *
+     * @param uri
+     * @param payload
+     * @param additionalHeaders
+     * @return
+     * @throws IOException if the request could not be created
+     */
+    public ListenableFuture<Context> put(URI uri, Object payload,
+            Map<String, String> additionalHeaders) throws IOException {
+        return put(uri, payload, getDefaultPutFactory(), additionalHeaders);
+    }
+
+    /**
+     * Sends a put request using the given {@link PutFactory} for this call only.
+     *
+     * @param uri
+     * @param payload
+     * @param putFactory
+     * @param additionalHeaders
+     * @return
+     * @throws IOException if the request could not be created
+     */
+    public ListenableFuture<Context> put(URI uri, Object payload, PutFactory putFactory,
+            Map<String, String> additionalHeaders) throws IOException {
+        return execute(uri, putFactory.createPutRequest(uri, payload), additionalHeaders);
+    }
+
+    /**
+     * Sends a patch request using the default {@link PatchFactory}.
+     *
+     * @param uri
+     * @param payload
+     * @return
+     * @throws IOException if the request could not be created
+     */
+    public ListenableFuture<Context> patch(URI uri, Object payload) throws IOException {
+        return patch(uri, payload, getDefaultPatchFactory(), null);
+    }
+
+    /**
+     * Sends a patch request using the default {@link PatchFactory} with additional headers.
+     *
+     * @param uri
+     * @param payload
+     * @param additionalHeaders
+     * @return
+     * @throws IOException if the request could not be created
+     */
+    public ListenableFuture<Context> patch(URI uri, Object payload,
+            Map<String, String> additionalHeaders) throws IOException {
+        return patch(uri, payload, getDefaultPatchFactory(), additionalHeaders);
+    }
+
+    /**
+     * Sends a patch request using the given {@link PatchFactory} for this call only.
+     *
+     * @param uri
+     * @param payload
+     * @param patchFactory
+     * @param additionalHeaders
+     * @return
+     * @throws IOException if the request could not be created
+     */
+    public ListenableFuture<Context> patch(URI uri, Object payload, PatchFactory patchFactory,
+            Map<String, String> additionalHeaders) throws IOException {
+        return execute(uri, patchFactory.createPatchRequest(uri, payload), additionalHeaders);
+    }
+
+    /**
+     * Sends a delete request using the default {@link DeleteFactory}.
+     *
+     * @param uri
+     * @return
+     * @throws IOException if the request could not be created
+     */
+    public ListenableFuture<Context> delete(URI uri) throws IOException {
+        return delete(uri, null, getDefaultDeleteFactory(), null);
+    }
+
+    /**
+     * Sends a delete request with a payload using the default {@link DeleteFactory}.
+     *
+     * @param uri
+     * @param payload
+     * @return
+     * @throws IOException if the request could not be created
+     */
+    public ListenableFuture<Context> delete(URI uri, Object payload) throws IOException {
+        return delete(uri, payload, getDefaultDeleteFactory(), null);
+    }
+
+    /**
+     * Sends a delete request using the given {@link DeleteFactory} for this call only.
+     *
+     * @param uri
+     * @param payload may be <code>null</code>
+     * @param deleteFactory
+     * @param additionalHeaders
+     * @return
+     * @throws IOException if the request could not be created
+     */
+    public ListenableFuture<Context> delete(URI uri, Object payload, DeleteFactory deleteFactory,
+            Map<String, String> additionalHeaders) throws IOException {
+        HttpRequestBase request;
+
+        if (payload != null) {
+            request = deleteFactory.createDeleteRequest(uri, payload);
+        } else {
+            request = deleteFactory.createDeleteRequest(uri);
+        }
+
+        return execute(uri, request, additionalHeaders);
+    }
+
+    /**
+     * Shutdown, closing any open HTTP connections and stopping the event loop and conversion
+     * threads. Requests still in flight fail.
+     */
+    public void shutdown() {
+        try {
+            client.close();
+        } catch (IOException e) {
+            // nothing left we could do about it
+        } finally {
+            conversionExecutor.shutdown();
+        }
+    }
+
+    private ListenableFuture<Context> execute(final URI uri, HttpRequestBase request,
+            Map<String, String> additionalHeaders) {
+
+        if (additionalHeaders != null) {
+            for (String headerName : additionalHeaders.keySet()) {
+                request.addHeader(headerName, additionalHeaders.get(headerName));
+            }
+        }
+
+        // IMPORTANT: we have to get the cookies before sending the request because its response
+        // could add some cookie (e.g: the response could have a Set-Cookie header)
+        final ApiRequest apiRequest =
+                ApiTestUtil.convertToApiRequest(uri, request, cookieStore);
+
+        HttpClientContext context = HttpClientContext.create();
+        context.setCookieStore(cookieStore);
+
+        final ResponseMode responseMode = this.responseMode;
+        final long start = System.nanoTime();
+        final SettableFuture<Context> result = SettableFuture.create();
+        final Future<HttpResponse> response =
+                client.execute(request, context, new FutureCallback<HttpResponse>() {
+
+                    public void completed(final HttpResponse response) {
+                        try {
+                            conversionExecutor.execute(new Runnable() {
+                                public void run() {
+                                    convert(response);
+                                }
+                            });
+                        } catch (RejectedExecutionException e) {
+                            result.setException(e);
+                        }
+                    }
+
+                    private void convert(HttpResponse response) {
+                        try {
+                            long bodyStart = System.nanoTime();
+                            ApiResponse apiResponse =
+                                    ApiTestUtil.convertToApiResponse(response, responseMode);
+                            long end = System.nanoTime();
+                            PhaseTimings timings = new PhaseTimings();
+                            timings.add(Phase.BODY_READ, end - bodyStart);
+                            ApiTesterModule.recordLatency(apiRequest.httpMethod, uri,
+                                    end - start, timings);
+                            result.set(new Context(apiResponse, apiRequest, end - start,
+                                    timings));
+                        } catch (IOException e) {
+                            result.setException(e);
+                        } catch (RuntimeException e) {
+                            result.setException(e);
+                        }
+                    }
+
+                    public void failed(Exception e) {
+                        result.setException(e);
+                    }
+
+                    public void cancelled() {
+                        result.cancel(false);
+                    }
+                });
+
+        result.addListener(new Runnable() {
+            public void run() {
+                if (result.isCancelled()) {
+                    response.cancel(true);
+                }
+            }
+        }, MoreExecutors.sameThreadExecutor());
+
+        return result;
+    }
+}
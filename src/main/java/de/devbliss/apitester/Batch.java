@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the requests of {@link ApiTest#executeAll(List, BatchConfig)}. Each request is sent by
+ * the same {@link ApiTest}, so all of them share its state, connection pool and cookies.
+ *
+ * @author hschuetz
+ *
+ */
+final class Batch {
+
+    private final ApiTest apiTest;
+    private final List<RequestSpec> requests;
+    private final boolean stopOnFirstFailure;
+    private final Context[] contexts;
+    private final Throwable[] failures;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile boolean failed;
+
+    private Batch(ApiTest apiTest, List<RequestSpec> requests, boolean stopOnFirstFailure) {
+        this.apiTest = apiTest;
+        this.requests = requests;
+        this.stopOnFirstFailure = stopOnFirstFailure;
+        contexts = new Context[requests.size()];
+        failures = new Throwable[requests.size()];
+    }
+
+    static List<Context> execute(ApiTest apiTest, List<RequestSpec> requests, BatchConfig config)
+            throws IOException {
+        // creates the state if there is none yet, before threads could race to do so
+        TestState testState = apiTest.getTestState();
+        int parallelism = config.getParallelism();
+        if (parallelism == BatchConfig.AUTOMATIC_PARALLELISM) {
+            parallelism = testState.isSingleConnection() ? 1 : BatchConfig.DEFAULT_PARALLELISM;
+        } else if (parallelism < 0) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        } else if (parallelism > 1 && testState.isSingleConnection()) {
+            throw new IllegalStateException("The state holds a single connection, so requests "
+                    + "cannot be sent concurrently. Use a pooled state, see "
+                    + "ApiTesterModule.createPooledTestState(), or a parallelism of 1");
+        }
+        final Batch batch = new Batch(apiTest, new ArrayList<RequestSpec>(requests),
+                config.isStopOnFirstFailure());
+        int threads = Math.min(parallelism, requests.size());
+
+        if (threads <= 1) {
+            batch.sendAll();
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                for (int i = 0; i < threads; i++) {
+                    executor.execute(new Runnable() {
+                        public void run() {
+                            batch.sendAll();
+                        }
+                    });
+                }
+                executor.shutdown();
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the batch");
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        return batch.getResult();
+    }
+
+    /**
+     * Takes the next request not sent yet until there are none left, so requests are sent in
+     * input order and no thread idles while others have a queue.
+     */
+    private void sendAll() {
+        for (int i = next.getAndIncrement(); i < contexts.length; i = next.getAndIncrement()) {
+            if (failed && stopOnFirstFailure) {
+                return;
+            }
+            try {
+                contexts[i] = requests.get(i).execute(apiTest);
+            } catch (Throwable e) {
+                // also errors, which would otherwise end the thread and leave the request unsent
+                fail(i, e);
+            }
+        }
+    }
+
+    private void fail(int index, Throwable failure) {
+        failures[index] = failure;
+        failed = true;
+    }
+
+    private List<Context> getResult() throws BatchException {
+        // the threads have terminated, so their writes to the arrays are visible
+        SortedMap<Integer, Throwable> failuresByIndex = new TreeMap<Integer, Throwable>();
+        int skipped = 0;
+        for (int i = 0; i < contexts.length; i++) {
+            if (failures[i] != null) {
+                failuresByIndex.put(i, failures[i]);
+            } else if (contexts[i] == null) {
+                skipped++;
+            }
+        }
+        List<Context> result = Collections.unmodifiableList(Arrays.asList(contexts));
+        if (!failuresByIndex.isEmpty()) {
+            throw new BatchException(result, failuresByIndex, skipped);
+        }
+        return result;
+    }
+}
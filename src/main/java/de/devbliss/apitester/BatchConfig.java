@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+/**
+ * Settings for {@link ApiTest#executeAll(java.util.List, BatchConfig)}.
+ *
+ * @author hschuetz
+ *
+ */
+public class BatchConfig {
+
+    /**
+     * Parallelism chosen from the state of the {@link ApiTest}: {@link #DEFAULT_PARALLELISM} if it
+     * can send concurrent requests, 1 if it holds a single connection only.
+     */
+    public static final int AUTOMATIC_PARALLELISM = 0;
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    private int parallelism = AUTOMATIC_PARALLELISM;
+    private boolean stopOnFirstFailure;
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @param parallelism maximum number of requests in flight at the same time, or
+     *            {@link #AUTOMATIC_PARALLELISM}. With 1, the requests are sent one after another
+     *            by the calling thread. Above 1, the state of the {@link ApiTest} must be safe for
+     *            concurrent use.
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public boolean isStopOnFirstFailure() {
+        return stopOnFirstFailure;
+    }
+
+    /**
+     * @param stopOnFirstFailure whether requests not sent yet are skipped once one has failed.
+     *            Requests already in flight are completed either way.
+     */
+    public void setStopOnFirstFailure(boolean stopOnFirstFailure) {
+        this.stopOnFirstFailure = stopOnFirstFailure;
+    }
+}
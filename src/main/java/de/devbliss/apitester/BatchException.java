@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Thrown by {@link ApiTest#executeAll(List, BatchConfig)} if at least one request failed. Its
+ * cause is the failure of the first request in input order that failed.
+ *
+ * @author hschuetz
+ *
+ */
+public class BatchException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Context> contexts;
+    private final SortedMap<Integer, Throwable> failures;
+    private final int skipped;
+
+    BatchException(List<Context> contexts, SortedMap<Integer, Throwable> failures, int skipped) {
+        super(failures.size() + " of " + contexts.size() + " requests failed, " + skipped
+                + " skipped, first failed: #" + failures.firstKey(),
+                failures.get(failures.firstKey()));
+        this.contexts = Collections.unmodifiableList(contexts);
+        this.failures = Collections.unmodifiableSortedMap(failures);
+        this.skipped = skipped;
+    }
+
+    /**
+     * @return the result of each request in input order, null for those that failed or were
+     *         skipped
+     */
+    public List<Context> getContexts() {
+        return contexts;
+    }
+
+    /**
+     * @return the failures by index of the request, including errors such as
+     *         {@link OutOfMemoryError}
+     */
+    public SortedMap<Integer, Throwable> getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return number of requests not sent because an earlier one failed, see
+     *         {@link BatchConfig#setStopOnFirstFailure(boolean)}
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+}
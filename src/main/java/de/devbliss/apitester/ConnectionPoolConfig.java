@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+/**
+ * Settings for the connection pool behind a pooled {@link TestState}, see
+ * {@link ApiTesterModule#createPooledTestState(ConnectionPoolConfig)}. The defaults are meant for
+ * a handful of worker threads talking to one backend; raise {@link #setMaxPerRoute(int)} if you
+ * run more threads than that against the same host.
+ *
+ * @author hschuetz
+ *
+ */
+public class ConnectionPoolConfig {
+
+    public static final int DEFAULT_MAX_TOTAL = 200;
+    public static final int DEFAULT_MAX_PER_ROUTE = 50;
+    public static final long DEFAULT_CONNECTION_TTL_MILLIS = -1;
+    public static final int DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+    private int maxTotal = DEFAULT_MAX_TOTAL;
+    private int maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+    private long connectionTtlMillis = DEFAULT_CONNECTION_TTL_MILLIS;
+    private int validateAfterInactivityMillis = DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS;
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    /**
+     * @param maxTotal maximum number of open connections over all routes
+     */
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    /**
+     * @param maxPerRoute maximum number of open connections to one host (scheme, host and port)
+     */
+    public void setMaxPerRoute(int maxPerRoute) {
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    public long getConnectionTtlMillis() {
+        return connectionTtlMillis;
+    }
+
+    /**
+     * @param connectionTtlMillis total time to live of a pooled connection, no matter how often it
+     *            has been reused. A value <= 0 means connections live until the server closes them.
+     */
+    public void setConnectionTtlMillis(long connectionTtlMillis) {
+        this.connectionTtlMillis = connectionTtlMillis;
+    }
+
+    public int getValidateAfterInactivityMillis() {
+        return validateAfterInactivityMillis;
+    }
+
+    /**
+     * @param validateAfterInactivityMillis connections that have been idle in the pool for longer
+     *            than this are checked for staleness before they are handed out again. A value < 0
+     *            disables the check.
+     */
+    public void setValidateAfterInactivityMillis(int validateAfterInactivityMillis) {
+        this.validateAfterInactivityMillis = validateAfterInactivityMillis;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts requests sent and connections opened by a pooled HTTP client. As long as the server keeps
+ * connections alive, far fewer connections than requests should be opened.
+ *
+ * @author hschuetz
+ *
+ */
+public class ConnectionStats {
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+
+    void requestSent() {
+        requests.incrementAndGet();
+    }
+
+    void connectionOpened() {
+        connectionsOpened.incrementAndGet();
+    }
+
+    /**
+     * @return number of requests sent so far
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return number of new connections opened so far
+     */
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    /**
+     * @return number of requests that were sent over an already open connection
+     */
+    public long getReusedConnections() {
+        return Math.max(0, getRequests() - getConnectionsOpened());
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionStats{" +
+                "requests=" + getRequests() +
+                ", connectionsOpened=" + getConnectionsOpened() +
+                '}';
+    }
+}
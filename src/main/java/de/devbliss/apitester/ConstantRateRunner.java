@@ -0,0 +1,212 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Recorder;
+
+import de.devbliss.apitester.LoadRunner.Scenario;
+
+/**
+ * Open model load generator: starts a scenario at a constant rate, no matter how long earlier
+ * ones take, until the configured duration is over, see {@link RateConfig}. Unlike
+ * {@link LoadRunner}, a stalled server does not slow down the load, and as latency is measured
+ * from the time each scenario was due, the time it spent waiting for the client is not lost
+ * either (coordinated omission).
+ *
+ * At most {@link RateConfig#getMaxOutstanding()} scenarios run at the same time, each worker
+ * thread with its own {@link TestState} sharing the transport of one state. If all of them are
+ * busy, the next scenario is started late, or dropped if it is late by more than
+ * {@link RateConfig#getMaxDelayMillis()}. Both are counted in the {@link RateSummary}, and the
+ * latency of a dropped scenario is recorded as the time it waited before it was given up.
+ *
+ * @author hschuetz
+ *
+ */
+public class ConstantRateRunner {
+
+    /**
+     * Scenarios started later than this after they were due count as delayed.
+     */
+    public static final long DELAY_TOLERANCE_MICROS = 1000;
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final TestState sharedTestState;
+    private final boolean ownsTestState;
+
+    /**
+     * @param config pool shared by all workers of this runner
+     */
+    public ConstantRateRunner(ConnectionPoolConfig config) {
+        this(ApiTesterModule.createPooledTestState(config), true);
+    }
+
+    /**
+     * @param testState state whose transport is used by all workers. It is not shut down by
+     *            {@link #shutdown()}.
+     */
+    public ConstantRateRunner(TestState testState) {
+        this(testState, false);
+    }
+
+    private ConstantRateRunner(TestState sharedTestState, boolean ownsTestState) {
+        this.sharedTestState = sharedTestState;
+        this.ownsTestState = ownsTestState;
+    }
+
+    /**
+     * Starts the scenario at the configured rate and waits until all started scenarios are done.
+     *
+     * @param config
+     * @param scenario
+     * @return
+     * @throws InterruptedException
+     */
+    public RateSummary run(RateConfig config, final Scenario scenario)
+            throws InterruptedException {
+        if (config.getRequestsPerSecond() <= 0) {
+            throw new IllegalArgumentException("Requests per second must be positive");
+        }
+        if (config.getDurationMillis() <= 0) {
+            throw new IllegalArgumentException("Duration must be set");
+        }
+        if (config.getMaxOutstanding() <= 0) {
+            throw new IllegalArgumentException("At least one outstanding request needed");
+        }
+
+        final double intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.getRequestsPerSecond();
+        final long maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxDelayMillis());
+        final Semaphore outstanding = new Semaphore(config.getMaxOutstanding());
+        final Recorder latency = new Recorder(SIGNIFICANT_DIGITS);
+        final Recorder serviceTime = new Recorder(SIGNIFICANT_DIGITS);
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong delayed = new AtomicLong();
+        final List<Throwable> failures = new ArrayList<Throwable>();
+        final ThreadLocal<ApiTest> apiTests = new ThreadLocal<ApiTest>() {
+            @Override
+            protected ApiTest initialValue() {
+                ApiTest apiTest = new ApiTest();
+                apiTest.setTestState(ApiTesterModule.createTestStateSharingClient(sharedTestState));
+                return apiTest;
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(config.getMaxOutstanding());
+        long started = 0;
+        long dropped = 0;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(config.getDurationMillis());
+
+        try {
+            for (long i = 0;; i++) {
+                final long due = start + (long) (i * intervalNanos);
+                if (due >= end) {
+                    break;
+                }
+                sleepUntil(due);
+
+                if (maxDelayNanos < 0) {
+                    outstanding.acquire();
+                } else if (!outstanding.tryAcquire(due + maxDelayNanos - System.nanoTime(),
+                        TimeUnit.NANOSECONDS)) {
+                    // as late as it got, a lower bound of what it would have taken
+                    latency.recordValue(System.nanoTime() - due);
+                    dropped++;
+                    continue;
+                }
+                started++;
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            long actualStart = System.nanoTime();
+                            if (actualStart - due > DELAY_TOLERANCE_MICROS * 1000) {
+                                delayed.incrementAndGet();
+                            }
+                            Throwable failure = runScenario(scenario, apiTests.get());
+                            long now = System.nanoTime();
+                            if (failure == null) {
+                                latency.recordValue(now - due);
+                                serviceTime.recordValue(now - actualStart);
+                            } else {
+                                errors.incrementAndGet();
+                                synchronized (failures) {
+                                    if (failures.size() < LoadRunner.MAX_FAILURES) {
+                                        failures.add(failure);
+                                    }
+                                }
+                            }
+                        } finally {
+                            outstanding.release();
+                        }
+                    }
+                });
+            }
+
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // wait for the outstanding scenarios, however long they take
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new RateSummary(config.getRequestsPerSecond(), started, errors.get(), dropped,
+                delayed.get(), System.nanoTime() - start, latency.getIntervalHistogram(),
+                serviceTime.getIntervalHistogram(), failures);
+    }
+
+    /**
+     * Shutdown, closing the connections of the pool created by this runner. Does nothing if the
+     * runner was created with a given state.
+     */
+    public void shutdown() {
+        if (ownsTestState) {
+            sharedTestState.shutdown();
+        }
+    }
+
+    private static Throwable runScenario(Scenario scenario, ApiTest apiTest) {
+        try {
+            scenario.run(apiTest);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return e;
+        } catch (Exception e) {
+            return e;
+        } catch (AssertionError e) {
+            return e;
+        }
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+}
@@ -14,6 +14,7 @@
 
 package de.devbliss.apitester;
 
+import java.util.concurrent.TimeUnit;
 
 /**
  * Wrapper object containing the {@link ApiRequest} object and the corresponding {@link ApiResponse}
@@ -26,9 +27,35 @@ public class Context {
 
     public final ApiResponse apiResponse;
     public final ApiRequest apiRequest;
+    /**
+     * Time from sending the request until the response was read, -1 if not measured
+     */
+    public final long elapsedNanos;
+    /**
+     * Where the elapsed time went, never null
+     */
+    public final PhaseTimings timings;
 
     public Context(ApiResponse apiResponse, ApiRequest apiRequest) {
+        this(apiResponse, apiRequest, -1);
+    }
+
+    public Context(ApiResponse apiResponse, ApiRequest apiRequest, long elapsedNanos) {
+        this(apiResponse, apiRequest, elapsedNanos, new PhaseTimings());
+    }
+
+    public Context(ApiResponse apiResponse, ApiRequest apiRequest, long elapsedNanos,
+            PhaseTimings timings) {
         this.apiResponse = apiResponse;
         this.apiRequest = apiRequest;
+        this.elapsedNanos = elapsedNanos;
+        this.timings = timings;
+    }
+
+    /**
+     * @return time from sending the request until the response was read, -1 if not measured
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
     }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.apache.http.client.CookieStore;
+import org.apache.http.cookie.Cookie;
+import org.apache.http.cookie.CookieIdentityComparator;
+import org.apache.http.impl.client.BasicCookieStore;
+
+/**
+ * {@link CookieStore} behaving like {@link BasicCookieStore}, but {@link #getCookies()} returns an
+ * immutable snapshot without copying. Every change replaces the snapshot, so a list returned before
+ * a request still shows the cookies sent with it after the response set new ones. Cookies usually
+ * change far less often than they are read, once per request by the client and once for the
+ * {@link ApiRequest}.
+ *
+ * @author hschuetz
+ *
+ */
+public class CopyOnWriteCookieStore implements CookieStore {
+
+    private static final CookieIdentityComparator IDENTITY = new CookieIdentityComparator();
+
+    private volatile List<Cookie> cookies = Collections.emptyList();
+
+    /**
+     * Adds the cookie, replacing one with the same name, domain and path. An expired cookie only
+     * removes the one it replaces.
+     */
+    public synchronized void addCookie(Cookie cookie) {
+        if (cookie == null) {
+            return;
+        }
+
+        TreeSet<Cookie> changed = new TreeSet<Cookie>(IDENTITY);
+        changed.addAll(cookies);
+        changed.remove(cookie);
+        if (!cookie.isExpired(new Date())) {
+            changed.add(cookie);
+        }
+        cookies = Collections.unmodifiableList(new ArrayList<Cookie>(changed));
+    }
+
+    /**
+     * @return the current cookies, not affected by later changes to this store
+     */
+    public List<Cookie> getCookies() {
+        return cookies;
+    }
+
+    public synchronized boolean clearExpired(Date date) {
+        if (date == null) {
+            return false;
+        }
+
+        List<Cookie> changed = new ArrayList<Cookie>(cookies);
+        boolean removed = false;
+        for (Iterator<Cookie> it = changed.iterator(); it.hasNext();) {
+            if (it.next().isExpired(date)) {
+                it.remove();
+                removed = true;
+            }
+        }
+        if (removed) {
+            cookies = Collections.unmodifiableList(changed);
+        }
+        return removed;
+    }
+
+    public synchronized void clear() {
+        cookies = Collections.emptyList();
+    }
+
+    @Override
+    public String toString() {
+        return cookies.toString();
+    }
+}
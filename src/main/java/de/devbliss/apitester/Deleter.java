@@ -18,7 +18,6 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.Map;
 
-import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpRequestBase;
 
 import de.devbliss.apitester.factory.DeleteFactory;
@@ -77,15 +76,17 @@ public class Deleter {
 
     public static Context delete(URI uri, TestState testState, DeleteFactory deleteFactory,
             Object payload, Map<String, String> additionalHeaders) throws IOException {
+        return delete(uri, testState, deleteFactory, payload, additionalHeaders, ResponseMode.FULL);
+    }
+
+    public static Context delete(URI uri, TestState testState, DeleteFactory deleteFactory,
+            Object payload, Map<String, String> additionalHeaders,
+            ResponseMode responseMode) throws IOException {
 
         if (deleteFactory == null) {
             deleteFactory = ApiTesterModule.createDeleteFactory();
         }
 
-        if (testState == null) {
-            testState = ApiTesterModule.createTestState();
-        }
-
         HttpRequestBase request = null;
 
         if (payload != null) {
@@ -94,20 +95,6 @@ public class Deleter {
             request = deleteFactory.createDeleteRequest(uri);
         }
 
-        if(additionalHeaders != null) {
-        	for (String headerName : additionalHeaders.keySet()) {
-        		request.addHeader(headerName, additionalHeaders.get(headerName));
-			}
-        }
-
-        // IMPORTANT: we have to get the cookies from the testState before making the request
-        // because this request could add some cookie to the testState (e.g: the response could have
-        // a Set-Cookie header)
-        ApiRequest apiRequest =
-                ApiTestUtil.convertToApiRequest(uri, request, testState.getCookies());
-
-        HttpResponse response = testState.client.execute(request);
-        ApiResponse apiResponse = ApiTestUtil.convertToApiResponse(response);
-        return new Context(apiResponse, apiRequest);
+        return RequestPipeline.execute(uri, request, testState, additionalHeaders, responseMode);
     }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.io.PrintStream;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies of all requests to one endpoint, in nanoseconds, see {@link LatencyStats}. Threads
+ * record without waiting for each other, the recorded values are merged only when the histogram
+ * is read.
+ *
+ * @author hschuetz
+ *
+ */
+public class EndpointStats {
+
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final String endpoint;
+    private final MergedRecorder latency = new MergedRecorder();
+
+    EndpointStats(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * @return method and URI without query, e.g. <code>GET http://localhost:8080/users/{id}</code>
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @param nanos latency of one request
+     */
+    public void record(long nanos) {
+        latency.record(nanos);
+    }
+
+    /**
+     * @return copy of the latencies recorded by all threads so far
+     */
+    public Histogram getHistogram() {
+        return latency.getHistogram();
+    }
+
+    /**
+     * @return number of requests recorded so far
+     */
+    public long getCount() {
+        return getHistogram().getTotalCount();
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g. 99.9
+     * @return latency in nanoseconds at the given percentile
+     */
+    public long getLatencyNanos(double percentile) {
+        return getHistogram().getValueAtPercentile(percentile);
+    }
+
+    /**
+     * Prints the percentile distribution of the latencies in milliseconds, in the format of
+     * {@link Histogram#outputPercentileDistribution(PrintStream, Double)}, which HdrHistogram's
+     * plotting tools understand.
+     *
+     * @param out
+     */
+    public void outputPercentileDistribution(PrintStream out) {
+        getHistogram().outputPercentileDistribution(out, NANOS_PER_MILLI);
+    }
+
+    /**
+     * Forgets all latencies recorded so far.
+     */
+    public void reset() {
+        latency.reset();
+    }
+
+    @Override
+    public String toString() {
+        Histogram histogram = getHistogram();
+        StringBuilder result = new StringBuilder("EndpointStats{endpoint=").append(endpoint)
+                .append(", count=").append(histogram.getTotalCount()).append(", ");
+        LoadSummary.appendPercentiles(result, "latencyMillis", histogram);
+        return result.append('}').toString();
+    }
+}
@@ -18,7 +18,6 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.Map;
 
-import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpGet;
 
 import de.devbliss.apitester.factory.GetFactory;
@@ -59,31 +58,18 @@ public class Getter {
 
     public static Context get(URI uri, TestState testState, GetFactory getFactory, Map<String, String> additionalHeaders)
             throws IOException {
+        return get(uri, testState, getFactory, additionalHeaders, ResponseMode.FULL);
+    }
+
+    public static Context get(URI uri, TestState testState, GetFactory getFactory, Map<String, String> additionalHeaders,
+            ResponseMode responseMode) throws IOException {
 
         if (getFactory == null) {
             getFactory = ApiTesterModule.createGetFactory();
         }
 
-        if (testState == null) {
-            testState = ApiTesterModule.createTestState();
-        }
-
         HttpGet request = getFactory.createGetRequest(uri);
 
-        if(additionalHeaders != null) {
-        	for (String headerName : additionalHeaders.keySet()) {
-        		request.addHeader(headerName, additionalHeaders.get(headerName));
-			}
-        }
-
-        // IMPORTANT: we have to get the cookies from the testState before making the request
-        // because this request could add some cookie to the testState (e.g: the response could have
-        // a Set-Cookie header)
-        ApiRequest apiRequest =
-                ApiTestUtil.convertToApiRequest(uri, request, testState.getCookies());
-
-        HttpResponse response = testState.client.execute(request);
-        ApiResponse apiResponse = ApiTestUtil.convertToApiResponse(response);
-        return new Context(apiResponse, apiRequest);
+        return RequestPipeline.execute(uri, request, testState, additionalHeaders, responseMode);
     }
 }
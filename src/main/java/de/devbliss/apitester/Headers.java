@@ -0,0 +1,155 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+
+/**
+ * Read only view of the headers of a request or response, backed by the received
+ * {@link Header} array without copying it. Lookups by name are case insensitive and see all
+ * values of repeated headers, e.g. several Set-Cookie lines.
+ *
+ * For compatibility it is also a {@link Map} from lower case header names to values, where a
+ * repeated header maps to its last value. That map is built only when it is used.
+ *
+ * @author hschuetz
+ *
+ */
+public class Headers extends AbstractMap<String, String> {
+
+    private final Header[] headers;
+    private volatile Map<String, String> lowerCaseIndex;
+
+    /**
+     * @param headers not copied, so must not be modified afterwards
+     */
+    public Headers(Header[] headers) {
+        this.headers = headers;
+    }
+
+    /**
+     * Wraps the given map, or returns it if it already is a {@link Headers} instance.
+     *
+     * @param headers
+     * @return
+     */
+    public static Headers of(Map<String, String> headers) {
+        if (headers instanceof Headers) {
+            return (Headers) headers;
+        }
+
+        Header[] array = new Header[headers.size()];
+        int i = 0;
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            array[i++] = new BasicHeader(header.getKey(), header.getValue());
+        }
+        return new Headers(array);
+    }
+
+    /**
+     * @param name case insensitive
+     * @return the value of the first header with that name, or null if there is none
+     */
+    public String getFirst(String name) {
+        for (Header header : headers) {
+            if (header.getName().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param name case insensitive
+     * @return the value of the last header with that name, or null if there is none
+     */
+    public String getLast(String name) {
+        for (int i = headers.length - 1; i >= 0; i--) {
+            if (headers[i].getName().equalsIgnoreCase(name)) {
+                return headers[i].getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param name case insensitive
+     * @return the values of all headers with that name in the order received, empty if there is
+     *         none
+     */
+    public List<String> getAll(String name) {
+        List<String> values = null;
+        for (Header header : headers) {
+            if (header.getName().equalsIgnoreCase(name)) {
+                if (values == null) {
+                    values = new ArrayList<String>(2);
+                }
+                values.add(header.getValue());
+            }
+        }
+        return values != null ? Collections.unmodifiableList(values)
+                : Collections.<String> emptyList();
+    }
+
+    /**
+     * @return number of header lines, counting repeated headers once per line
+     */
+    public int getHeaderCount() {
+        return headers.length;
+    }
+
+    @Override
+    public String get(Object key) {
+        return getLowerCaseIndex().get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return getLowerCaseIndex().containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return getLowerCaseIndex().size();
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return getLowerCaseIndex().entrySet();
+    }
+
+    private Map<String, String> getLowerCaseIndex() {
+        Map<String, String> index = lowerCaseIndex;
+        if (index == null) {
+            Map<String, String> lowerCase = new LinkedHashMap<String, String>();
+            for (Header header : headers) {
+                lowerCase.put(header.getName().toLowerCase(Locale.ENGLISH), header.getValue());
+            }
+            index = Collections.unmodifiableMap(lowerCase);
+            lowerCaseIndex = index;
+        }
+        return index;
+    }
+}
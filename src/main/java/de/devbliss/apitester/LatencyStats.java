@@ -0,0 +1,162 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Latencies of requests by endpoint, i.e. by method and URI without query, where path segments
+ * that look like ids are replaced by {@link #ID_SEGMENT}. {@link Getter},
+ * {@link Poster}, {@link Putter}, {@link Patcher}, {@link Deleter} and {@link AsyncApiTest} record
+ * every request into the instance returned by {@link ApiTesterModule#getLatencyStats()}.
+ *
+ * The {@link PhaseTimings} of the requests are recorded as well, over all endpoints, see
+ * {@link #getPhaseStats()}.
+ *
+ * Ids are numbers, UUIDs and hex strings of at least 16 digits, so <code>/users/42</code> and
+ * <code>/users/43</code> are the same endpoint <code>/users/{id}</code>. To keep memory bounded if
+ * URIs contain other ids, at most {@link #MAX_ENDPOINTS} endpoints are kept apart, requests to any
+ * further endpoint are all recorded as {@link #OTHER_ENDPOINTS}.
+ *
+ * @author hschuetz
+ *
+ */
+public class LatencyStats {
+
+    public static final int MAX_ENDPOINTS = 100;
+    public static final String OTHER_ENDPOINTS = "*";
+    public static final String ID_SEGMENT = "{id}";
+
+    private static final Pattern ID = Pattern.compile(
+            "\\d+|\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12}"
+                    + "|\\p{XDigit}{16,}");
+
+    private final ConcurrentMap<String, EndpointStats> endpoints =
+            new ConcurrentHashMap<String, EndpointStats>();
+    private final PhaseStats phaseStats = new PhaseStats();
+
+    /**
+     * @param method
+     * @param uri
+     * @param nanos latency of one request
+     */
+    public void record(String method, URI uri, long nanos) {
+        getEndpoint(method, uri).record(nanos);
+    }
+
+    /**
+     * @param method
+     * @param uri
+     * @param nanos latency of one request
+     * @param timings where the time of that request went
+     */
+    public void record(String method, URI uri, long nanos, PhaseTimings timings) {
+        getEndpoint(method, uri).record(nanos);
+        phaseStats.record(timings);
+    }
+
+    /**
+     * @param method
+     * @param uri
+     * @return stats of the endpoint the given request belongs to, created if there were no
+     *         requests to it yet
+     */
+    public EndpointStats getEndpoint(String method, URI uri) {
+        String endpoint = toEndpoint(method, uri);
+        EndpointStats stats = endpoints.get(endpoint);
+        if (stats == null) {
+            if (endpoints.size() >= MAX_ENDPOINTS) {
+                endpoint = OTHER_ENDPOINTS;
+            }
+            EndpointStats created = new EndpointStats(endpoint);
+            stats = endpoints.putIfAbsent(endpoint, created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * @return stats of all endpoints requests were recorded for, sorted by endpoint
+     */
+    public Map<String, EndpointStats> getEndpoints() {
+        return new TreeMap<String, EndpointStats>(endpoints);
+    }
+
+    /**
+     * @return time spent in each phase by all requests
+     */
+    public PhaseStats getPhaseStats() {
+        return phaseStats;
+    }
+
+    /**
+     * Prints the percentile distribution of each endpoint, see
+     * {@link EndpointStats#outputPercentileDistribution(PrintStream)}.
+     *
+     * @param out
+     */
+    public void outputPercentileDistributions(PrintStream out) {
+        for (EndpointStats stats : getEndpoints().values()) {
+            out.println(stats.getEndpoint());
+            stats.outputPercentileDistribution(out);
+            out.println();
+        }
+    }
+
+    /**
+     * Forgets all endpoints, their latencies and the phase times.
+     */
+    public void reset() {
+        for (EndpointStats stats : endpoints.values()) {
+            stats.reset();
+        }
+        endpoints.clear();
+        phaseStats.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyStats" + getEndpoints().values();
+    }
+
+    private static String toEndpoint(String method, URI uri) {
+        StringBuilder endpoint = new StringBuilder().append(method).append(' ');
+        if (uri.getScheme() != null) {
+            endpoint.append(uri.getScheme()).append("://");
+        }
+        if (uri.getRawAuthority() != null) {
+            endpoint.append(uri.getRawAuthority());
+        }
+        String path = uri.getRawPath();
+        if (path != null) {
+            String[] segments = path.split("/", -1);
+            for (int i = 0; i < segments.length; i++) {
+                if (i > 0) {
+                    endpoint.append('/');
+                }
+                endpoint.append(ID.matcher(segments[i]).matches() ? ID_SEGMENT : segments[i]);
+            }
+        }
+        return endpoint.toString();
+    }
+}
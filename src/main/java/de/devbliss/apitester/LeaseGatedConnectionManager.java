@@ -0,0 +1,165 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+import de.devbliss.apitester.PhaseTimings.Phase;
+
+/**
+ * Wraps a {@link PoolingHttpClientConnectionManager} so that threads waiting for a free connection
+ * wait on a {@link Semaphore} in front of the pool instead of inside it. The pool of HttpClient
+ * waits for a connection while holding a monitor, which pins a virtual thread to its carrier
+ * thread. With enough sessions waiting, all carrier threads end up pinned and the sessions holding
+ * connections never get to run again to return them. Since the semaphores hand out exactly as many
+ * permits as the pool has connections, the pool itself never has to wait. The whole wait is
+ * recorded as {@link Phase#POOL_WAIT}.
+ *
+ * @author hschuetz
+ *
+ */
+class LeaseGatedConnectionManager implements HttpClientConnectionManager {
+
+    private final PoolingHttpClientConnectionManager delegate;
+    private final Semaphore total;
+    private final ConcurrentMap<HttpRoute, Semaphore> perRoute =
+            new ConcurrentHashMap<HttpRoute, Semaphore>();
+    private final ConcurrentMap<HttpClientConnection, HttpRoute> leased =
+            new ConcurrentHashMap<HttpClientConnection, HttpRoute>();
+
+    LeaseGatedConnectionManager(PoolingHttpClientConnectionManager delegate) {
+        this.delegate = delegate;
+        this.total = new Semaphore(delegate.getMaxTotal(), true);
+    }
+
+    public ConnectionRequest requestConnection(final HttpRoute route, final Object state) {
+        return new ConnectionRequest() {
+
+            private volatile ConnectionRequest request;
+
+            public boolean cancel() {
+                ConnectionRequest current = request;
+                return current != null && current.cancel();
+            }
+
+            public HttpClientConnection get(long timeout, TimeUnit unit)
+                    throws InterruptedException, ExecutionException,
+                    ConnectionPoolTimeoutException {
+                long start = System.nanoTime();
+                long deadline = timeout > 0 ? start + unit.toNanos(timeout) : 0;
+                acquire(total, deadline);
+                Semaphore routePermits = getRoutePermits(route);
+                try {
+                    acquire(routePermits, deadline);
+                } catch (InterruptedException e) {
+                    total.release();
+                    throw e;
+                } catch (ConnectionPoolTimeoutException e) {
+                    total.release();
+                    throw e;
+                }
+
+                boolean success = false;
+                try {
+                    request = delegate.requestConnection(route, state);
+                    HttpClientConnection connection = request.get(timeout, unit);
+                    leased.put(connection, route);
+                    PhaseTimings.record(Phase.POOL_WAIT, System.nanoTime() - start);
+                    success = true;
+                    return connection;
+                } finally {
+                    if (!success) {
+                        routePermits.release();
+                        total.release();
+                    }
+                }
+            }
+        };
+    }
+
+    public void releaseConnection(HttpClientConnection connection, Object newState,
+            long validDuration, TimeUnit timeUnit) {
+        try {
+            delegate.releaseConnection(connection, newState, validDuration, timeUnit);
+        } finally {
+            HttpRoute route = leased.remove(connection);
+            if (route != null) {
+                getRoutePermits(route).release();
+                total.release();
+            }
+        }
+    }
+
+    public void connect(HttpClientConnection connection, HttpRoute route, int connectTimeout,
+            HttpContext context) throws IOException {
+        delegate.connect(connection, route, connectTimeout, context);
+    }
+
+    public void upgrade(HttpClientConnection connection, HttpRoute route, HttpContext context)
+            throws IOException {
+        delegate.upgrade(connection, route, context);
+    }
+
+    public void routeComplete(HttpClientConnection connection, HttpRoute route,
+            HttpContext context) throws IOException {
+        delegate.routeComplete(connection, route, context);
+    }
+
+    public void closeIdleConnections(long idleTime, TimeUnit timeUnit) {
+        delegate.closeIdleConnections(idleTime, timeUnit);
+    }
+
+    public void closeExpiredConnections() {
+        delegate.closeExpiredConnections();
+    }
+
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    private Semaphore getRoutePermits(HttpRoute route) {
+        Semaphore permits = perRoute.get(route);
+        if (permits == null) {
+            Semaphore created = new Semaphore(delegate.getMaxPerRoute(route), true);
+            permits = perRoute.putIfAbsent(route, created);
+            if (permits == null) {
+                permits = created;
+            }
+        }
+        return permits;
+    }
+
+    private static void acquire(Semaphore permits, long deadline) throws InterruptedException,
+            ConnectionPoolTimeoutException {
+        if (deadline == 0) {
+            permits.acquire();
+        } else if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            throw new ConnectionPoolTimeoutException("Timeout waiting for connection from pool");
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+/**
+ * Settings for a run of {@link LoadRunner}. A run ends when every user has either run for
+ * {@link #setDurationMillis(long)} or completed {@link #setIterationsPerUser(long)} iterations,
+ * whichever comes first. At least one of both limits has to be set.
+ *
+ * @author hschuetz
+ *
+ */
+public class LoadConfig {
+
+    public static final int DEFAULT_USERS = 10;
+
+    private int users = DEFAULT_USERS;
+    private long durationMillis = -1;
+    private long iterationsPerUser = -1;
+    private long rampUpMillis;
+    private long thinkTimeMillis;
+
+    public int getUsers() {
+        return users;
+    }
+
+    /**
+     * @param users number of virtual users, each running the scenario in a loop on its own thread
+     *            and with its own cookies
+     */
+    public void setUsers(int users) {
+        this.users = users;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * @param durationMillis time after which no user starts another iteration, counted from the
+     *            start of the run. A value <= 0 means no time limit.
+     */
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public long getIterationsPerUser() {
+        return iterationsPerUser;
+    }
+
+    /**
+     * @param iterationsPerUser number of times each user runs the scenario. A value <= 0 means no
+     *            limit.
+     */
+    public void setIterationsPerUser(long iterationsPerUser) {
+        this.iterationsPerUser = iterationsPerUser;
+    }
+
+    public long getRampUpMillis() {
+        return rampUpMillis;
+    }
+
+    /**
+     * @param rampUpMillis time over which the users are started one after another at even
+     *            intervals, 0 to start all of them at once
+     */
+    public void setRampUpMillis(long rampUpMillis) {
+        this.rampUpMillis = rampUpMillis;
+    }
+
+    public long getThinkTimeMillis() {
+        return thinkTimeMillis;
+    }
+
+    /**
+     * @param thinkTimeMillis pause of each user between two iterations, not part of the measured
+     *            latency
+     */
+    public void setThinkTimeMillis(long thinkTimeMillis) {
+        this.thinkTimeMillis = thinkTimeMillis;
+    }
+}
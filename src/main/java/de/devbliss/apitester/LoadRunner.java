@@ -0,0 +1,220 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Closed model load generator: a fixed number of virtual users, each on its own thread and with
+ * its own {@link TestState}, run a scenario in a loop as fast as the server answers, see
+ * {@link LoadConfig} for ramp-up, think time and when to stop. All users share the transport of
+ * one state, by default a pooled HTTP client, and the result is summed up in a
+ * {@link LoadSummary}.
+ *
+ * As each user waits for a response before sending the next request, a stalled server also
+ * stalls the load, so latencies measured this way understate what clients arriving at a fixed
+ * rate would see.
+ *
+ * @author hschuetz
+ *
+ */
+public class LoadRunner {
+
+    /**
+     * Number of failures kept in the {@link LoadSummary}, all others are only counted.
+     */
+    public static final int MAX_FAILURES = 10;
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    /**
+     * One iteration of what a virtual user does.
+     */
+    public interface Scenario {
+
+        /**
+         * @param apiTest instance holding the state of this user only, kept between iterations
+         * @throws Exception makes the iteration count as failed
+         */
+        void run(ApiTest apiTest) throws Exception;
+    }
+
+    private final TestState sharedTestState;
+    private final boolean ownsTestState;
+
+    /**
+     * @param config pool shared by all users of this runner
+     */
+    public LoadRunner(ConnectionPoolConfig config) {
+        this(ApiTesterModule.createPooledTestState(config), true);
+    }
+
+    /**
+     * @param testState state whose transport is used by all users, e.g. one created with
+     *            {@link ApiTesterModule#createTestState(de.devbliss.apitester.transport.Transport)}.
+     *            It is not shut down by {@link #shutdown()}.
+     */
+    public LoadRunner(TestState testState) {
+        this(testState, false);
+    }
+
+    private LoadRunner(TestState sharedTestState, boolean ownsTestState) {
+        this.sharedTestState = sharedTestState;
+        this.ownsTestState = ownsTestState;
+    }
+
+    /**
+     * Runs the scenario with the given settings and waits until all users are done.
+     *
+     * @param config
+     * @param scenario
+     * @return
+     * @throws InterruptedException
+     */
+    public LoadSummary run(LoadConfig config, final Scenario scenario)
+            throws InterruptedException {
+        if (config.getUsers() <= 0) {
+            throw new IllegalArgumentException("At least one user needed");
+        }
+        if (config.getDurationMillis() <= 0 && config.getIterationsPerUser() <= 0) {
+            throw new IllegalArgumentException("Duration or iterations per user must be set");
+        }
+
+        final int users = config.getUsers();
+        final long iterationsPerUser = config.getIterationsPerUser() > 0
+                ? config.getIterationsPerUser() : Long.MAX_VALUE;
+        final long thinkTimeMillis = config.getThinkTimeMillis();
+        final long rampUpNanos = TimeUnit.MILLISECONDS.toNanos(config.getRampUpMillis());
+        final long start = System.nanoTime();
+        final long end = config.getDurationMillis() > 0
+                ? start + TimeUnit.MILLISECONDS.toNanos(config.getDurationMillis())
+                : Long.MAX_VALUE;
+
+        ExecutorService executor = Executors.newFixedThreadPool(users);
+        List<Future<UserResult>> results = new ArrayList<Future<UserResult>>(users);
+
+        try {
+            for (int i = 0; i < users; i++) {
+                final ApiTest apiTest = new ApiTest();
+                apiTest.setTestState(ApiTesterModule.createTestStateSharingClient(sharedTestState));
+                final long startDelay = rampUpNanos * i / users;
+                results.add(executor.submit(new Callable<UserResult>() {
+                    public UserResult call() throws Exception {
+                        sleepUntil(start + startDelay);
+                        return runUser(apiTest, scenario, iterationsPerUser, end, thinkTimeMillis);
+                    }
+                }));
+            }
+
+            Histogram latency = new Histogram(SIGNIFICANT_DIGITS);
+            long iterations = 0;
+            long errors = 0;
+            List<Throwable> failures = new ArrayList<Throwable>();
+            for (Future<UserResult> result : results) {
+                UserResult userResult;
+                try {
+                    userResult = result.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Virtual user stopped unexpectedly",
+                            e.getCause());
+                }
+                latency.add(userResult.latency);
+                iterations += userResult.iterations;
+                errors += userResult.errors;
+                for (Throwable failure : userResult.failures) {
+                    if (failures.size() < MAX_FAILURES) {
+                        failures.add(failure);
+                    }
+                }
+            }
+            return new LoadSummary(iterations, errors, System.nanoTime() - start, latency,
+                    failures);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Shutdown, closing the connections of the pool created by this runner. Does nothing if the
+     * runner was created with a given state.
+     */
+    public void shutdown() {
+        if (ownsTestState) {
+            sharedTestState.shutdown();
+        }
+    }
+
+    private static UserResult runUser(ApiTest apiTest, Scenario scenario, long maxIterations,
+            long end, long thinkTimeMillis) throws InterruptedException {
+        UserResult result = new UserResult();
+
+        while (result.iterations < maxIterations && System.nanoTime() < end) {
+            long iterationStart = System.nanoTime();
+            Throwable failure = null;
+            try {
+                scenario.run(apiTest);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                failure = e;
+            } catch (AssertionError e) {
+                failure = e;
+            }
+            long latency = System.nanoTime() - iterationStart;
+
+            result.iterations++;
+            if (failure == null) {
+                result.latency.recordValue(latency);
+            } else {
+                result.errors++;
+                if (result.failures.size() < MAX_FAILURES) {
+                    result.failures.add(failure);
+                }
+            }
+
+            if (thinkTimeMillis > 0 && result.iterations < maxIterations) {
+                Thread.sleep(thinkTimeMillis);
+            }
+        }
+        return result;
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long remaining = nanoTime - System.nanoTime();
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    /**
+     * Results of one user, merged when all users are done so recording needs no synchronization.
+     */
+    private static class UserResult {
+
+        final Histogram latency = new Histogram(SIGNIFICANT_DIGITS);
+        final List<Throwable> failures = new ArrayList<Throwable>();
+        long iterations;
+        long errors;
+    }
+}
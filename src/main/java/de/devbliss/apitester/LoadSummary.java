@@ -0,0 +1,136 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Result of a run of {@link LoadRunner}, or of {@link ConstantRateRunner}, see
+ * {@link RateSummary}. Latencies are in nanoseconds and only cover iterations that succeeded, and
+ * for a {@link RateSummary} the dropped ones.
+ *
+ * @author hschuetz
+ *
+ */
+public class LoadSummary {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final long iterations;
+    private final long errors;
+    private final long elapsedNanos;
+    private final Histogram latency;
+    private final List<Throwable> failures;
+
+    LoadSummary(long iterations, long errors, long elapsedNanos, Histogram latency,
+            List<Throwable> failures) {
+        this.iterations = iterations;
+        this.errors = errors;
+        this.elapsedNanos = elapsedNanos;
+        this.latency = latency;
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * @return number of iterations run by all users, including the failed ones
+     */
+    public long getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return number of iterations that threw an exception or failed an assertion
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return share of failed iterations, between 0 and 1
+     */
+    public double getErrorRate() {
+        return iterations == 0 ? 0 : (double) errors / iterations;
+    }
+
+    /**
+     * @return wall clock time of the whole run, including ramp-up
+     */
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * @return iterations per second over the whole run
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : iterations * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g. 99.9
+     * @return latency in nanoseconds at the given percentile
+     */
+    public long getLatencyNanos(double percentile) {
+        return latency.getValueAtPercentile(percentile);
+    }
+
+    /**
+     * @return copy of the latency histogram, e.g. to print it with
+     *         {@link Histogram#outputPercentileDistribution(java.io.PrintStream, Double)}
+     */
+    public Histogram getLatency() {
+        return latency.copy();
+    }
+
+    /**
+     * @return the first failures, at most {@link LoadRunner#MAX_FAILURES}
+     */
+    public List<Throwable> getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder(getClass().getSimpleName()).append('{');
+        appendFields(result);
+        return result.append('}').toString();
+    }
+
+    void appendFields(StringBuilder result) {
+        result.append("iterations=").append(iterations)
+                .append(", errors=").append(errors)
+                .append(", elapsedMillis=").append(getElapsedMillis())
+                .append(", throughput=").append(String.format("%.1f/s", getThroughput()))
+                .append(", ");
+        appendPercentiles(result, "latencyMillis", latency);
+    }
+
+    static void appendPercentiles(StringBuilder result, String name, Histogram histogram) {
+        result.append(name).append("={");
+        for (double percentile : PERCENTILES) {
+            result.append("p").append(percentile).append('=')
+                    .append(toMillis(histogram.getValueAtPercentile(percentile))).append(", ");
+        }
+        result.append("max=").append(toMillis(histogram.getMaxValue())).append('}');
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format("%.3f", nanos / 1e6);
+    }
+}
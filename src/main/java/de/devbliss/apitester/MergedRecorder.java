@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Histogram that any number of threads record into without waiting for each other, through one
+ * shared {@link Recorder}. What was recorded since the last read is merged into the total only
+ * when the histogram is read. Holds nothing per thread, so short-lived threads leave no garbage
+ * behind.
+ *
+ * As one is kept for every endpoint and phase for the life of the JVM, values are tracked to 1%
+ * and up to an hour only, which keeps each of its three histograms at about 37 kB. Longer values
+ * are recorded as an hour.
+ *
+ * @author hschuetz
+ *
+ */
+class MergedRecorder {
+
+    static final long HIGHEST_TRACKABLE_VALUE = TimeUnit.HOURS.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_VALUE, SIGNIFICANT_DIGITS);
+    // guarded by this
+    private final Histogram total = new Histogram(HIGHEST_TRACKABLE_VALUE, SIGNIFICANT_DIGITS);
+    private Histogram interval;
+
+    void record(long value) {
+        recorder.recordValue(Math.min(value, HIGHEST_TRACKABLE_VALUE));
+    }
+
+    /**
+     * @return copy of the values recorded by all threads so far
+     */
+    synchronized Histogram getHistogram() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        return total.copy();
+    }
+
+    synchronized void reset() {
+        recorder.reset();
+        total.reset();
+    }
+}
@@ -18,7 +18,6 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.Map;
 
-import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpPatch;
 
 import de.devbliss.apitester.factory.DeleteFactory;
@@ -81,31 +80,18 @@ public class Patcher {
 
     public static Context patch(URI uri, TestState testState, PatchFactory patchFactory, Object payload, Map<String, String> additionalHeaders)
             throws IOException {
+        return patch(uri, testState, patchFactory, payload, additionalHeaders, ResponseMode.FULL);
+    }
+
+    public static Context patch(URI uri, TestState testState, PatchFactory patchFactory, Object payload, Map<String, String> additionalHeaders,
+            ResponseMode responseMode) throws IOException {
 
         if (patchFactory == null) {
         	patchFactory = ApiTesterModule.createPatchFactory();
         }
 
-        if (testState == null) {
-            testState = ApiTesterModule.createTestState();
-        }
-
         HttpPatch request = patchFactory.createPatchRequest(uri, payload);
 
-        if(additionalHeaders != null) {
-        	for (String headerName : additionalHeaders.keySet()) {
-        		request.addHeader(headerName, additionalHeaders.get(headerName));
-			}
-        }
-
-        // IMPORTANT: we have to get the cookies from the testState before making the request
-        // because this request could add some cookie to the testState (e.g: the response could have
-        // a Set-Cookie header)
-        ApiRequest apiRequest =
-                ApiTestUtil.convertToApiRequest(uri, request, testState.getCookies());
-
-        HttpResponse response = testState.client.execute(request);
-        ApiResponse apiResponse = ApiTestUtil.convertToApiResponse(response);
-        return new Context(apiResponse, apiRequest);
+        return RequestPipeline.execute(uri, request, testState, additionalHeaders, responseMode);
     }
 }
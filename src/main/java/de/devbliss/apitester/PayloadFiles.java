@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the temporary files payloads are spilled to, see
+ * {@link ApiTestUtil#setPayloadSpillThreshold(long)}. A file is deleted when its response is
+ * released with {@link ApiResponse#release()}, or else once the response has been garbage
+ * collected, which is noticed the next time a payload is spilled. The files still left are deleted
+ * by a single shutdown hook, unlike {@link File#deleteOnExit()}, which would remember every file
+ * ever spilled until the JVM exits.
+ *
+ * @author hschuetz
+ *
+ */
+final class PayloadFiles {
+
+    private static final ReferenceQueue<ApiResponse> COLLECTED = new ReferenceQueue<ApiResponse>();
+    private static final Map<File, PayloadReference> LIVE =
+            new ConcurrentHashMap<File, PayloadReference>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread("apitester-payload-cleanup") {
+            @Override
+            public void run() {
+                for (File file : LIVE.keySet()) {
+                    file.delete();
+                }
+            }
+        });
+    }
+
+    private PayloadFiles() {
+    }
+
+    /**
+     * Creates an empty temporary file for a payload. It is not tracked yet, so the caller deletes
+     * it if the payload can not be written to it.
+     */
+    static File create() throws IOException {
+        deleteCollected();
+        return File.createTempFile("apitester-payload-", ".tmp");
+    }
+
+    /**
+     * Deletes the payload file of the given response once it is released or garbage collected.
+     */
+    static void track(ApiResponse response) {
+        File file = response.getPayloadFile();
+        LIVE.put(file, new PayloadReference(response, file));
+    }
+
+    /**
+     * Deletes the file if it was tracked, leaving files of other origin alone.
+     */
+    static void release(File file) {
+        PayloadReference reference = LIVE.remove(file);
+        if (reference != null) {
+            reference.clear();
+            file.delete();
+        }
+    }
+
+    private static void deleteCollected() {
+        Reference<? extends ApiResponse> reference;
+        while ((reference = COLLECTED.poll()) != null) {
+            release(((PayloadReference) reference).file);
+        }
+    }
+
+    private static class PayloadReference extends PhantomReference<ApiResponse> {
+
+        private final File file;
+
+        PayloadReference(ApiResponse response, File file) {
+            super(response, COLLECTED);
+            this.file = file;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+
+import de.devbliss.apitester.PhaseTimings.Phase;
+
+/**
+ * Histograms of the {@link PhaseTimings} of all requests, one per phase, in nanoseconds. A request
+ * only counts for the phases it went through, so e.g. the {@link Phase#CONNECT} histogram shows
+ * how long opening a connection took, and its count how often that happened. See
+ * {@link LatencyStats#getPhaseStats()}.
+ *
+ * @author hschuetz
+ *
+ */
+public class PhaseStats {
+
+    private static final double NANOS_PER_MILLI = 1e6;
+    // values() copies the array on every call
+    private static final Phase[] PHASES = Phase.values();
+
+    private final Map<Phase, MergedRecorder> phases =
+            new EnumMap<Phase, MergedRecorder>(Phase.class);
+
+    PhaseStats() {
+        for (Phase phase : PHASES) {
+            phases.put(phase, new MergedRecorder());
+        }
+    }
+
+    /**
+     * @param timings of one request
+     */
+    public void record(PhaseTimings timings) {
+        for (Phase phase : PHASES) {
+            if (timings.isMeasured(phase)) {
+                phases.get(phase).record(timings.getNanos(phase));
+            }
+        }
+    }
+
+    /**
+     * @param phase
+     * @return copy of the times recorded for the given phase so far
+     */
+    public Histogram getHistogram(Phase phase) {
+        return phases.get(phase).getHistogram();
+    }
+
+    /**
+     * @param phase
+     * @param percentile between 0 and 100, e.g. 99.9
+     * @return time in nanoseconds spent in the given phase at the given percentile
+     */
+    public long getNanos(Phase phase, double percentile) {
+        return getHistogram(phase).getValueAtPercentile(percentile);
+    }
+
+    /**
+     * Prints the percentile distribution of each phase in milliseconds, see
+     * {@link EndpointStats#outputPercentileDistribution(PrintStream)}.
+     *
+     * @param out
+     */
+    public void outputPercentileDistributions(PrintStream out) {
+        for (Phase phase : PHASES) {
+            out.println(phase);
+            getHistogram(phase).outputPercentileDistribution(out, NANOS_PER_MILLI);
+            out.println();
+        }
+    }
+
+    /**
+     * Forgets all times recorded so far.
+     */
+    public void reset() {
+        for (MergedRecorder recorder : phases.values()) {
+            recorder.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("PhaseStats{");
+        for (Phase phase : PHASES) {
+            Histogram histogram = getHistogram(phase);
+            if (phase.ordinal() > 0) {
+                result.append(", ");
+            }
+            result.append(phase).append("={count=").append(histogram.getTotalCount())
+                    .append(", ");
+            LoadSummary.appendPercentiles(result, "millis", histogram);
+            result.append('}');
+        }
+        return result.append('}').toString();
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+
+import de.devbliss.apitester.PhaseTimings.Phase;
+
+/**
+ * Records the time of resolving host names as {@link Phase#DNS}.
+ *
+ * @author hschuetz
+ *
+ */
+class PhaseTimingDnsResolver implements DnsResolver {
+
+    static final PhaseTimingDnsResolver INSTANCE = new PhaseTimingDnsResolver();
+
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        long start = System.nanoTime();
+        try {
+            return SystemDefaultDnsResolver.INSTANCE.resolve(host);
+        } finally {
+            PhaseTimings.record(Phase.DNS, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.io.IOException;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import de.devbliss.apitester.PhaseTimings.Phase;
+
+/**
+ * Records writing the request as {@link Phase#REQUEST_WRITE} and waiting for the response headers
+ * as {@link Phase#TIME_TO_FIRST_BYTE}. The body is read later, when the response is converted.
+ *
+ * @author hschuetz
+ *
+ */
+class PhaseTimingRequestExecutor extends HttpRequestExecutor {
+
+    @Override
+    protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection connection,
+            HttpContext context) throws IOException, HttpException {
+        long start = System.nanoTime();
+        try {
+            return super.doSendRequest(request, connection, context);
+        } finally {
+            PhaseTimings.record(Phase.REQUEST_WRITE, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection connection,
+            HttpContext context) throws HttpException, IOException {
+        long start = System.nanoTime();
+        try {
+            return super.doReceiveResponse(request, connection, context);
+        } finally {
+            PhaseTimings.record(Phase.TIME_TO_FIRST_BYTE, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+
+import de.devbliss.apitester.PhaseTimings.Phase;
+
+/**
+ * Plain socket factory recording the time of opening a connection as {@link Phase#CONNECT}.
+ *
+ * @author hschuetz
+ *
+ */
+class PhaseTimingSocketFactory implements ConnectionSocketFactory {
+
+    static final PhaseTimingSocketFactory INSTANCE = new PhaseTimingSocketFactory();
+
+    private final ConnectionSocketFactory delegate =
+            PlainConnectionSocketFactory.getSocketFactory();
+
+    public Socket createSocket(HttpContext context) throws IOException {
+        return delegate.createSocket(context);
+    }
+
+    public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host,
+            InetSocketAddress remoteAddress, InetSocketAddress localAddress, HttpContext context)
+            throws IOException {
+        long start = System.nanoTime();
+        try {
+            return delegate.connectSocket(connectTimeout, socket, host, remoteAddress,
+                    localAddress, context);
+        } finally {
+            PhaseTimings.record(Phase.CONNECT, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.ssl.SSLContexts;
+
+import de.devbliss.apitester.PhaseTimings.Phase;
+
+/**
+ * The default TLS socket factory, recording the handshake as {@link Phase#TLS} and the time of
+ * opening the connection before it as {@link Phase#CONNECT}.
+ *
+ * @author hschuetz
+ *
+ */
+class PhaseTimingSslSocketFactory extends SSLConnectionSocketFactory {
+
+    PhaseTimingSslSocketFactory() {
+        super(SSLContexts.createDefault(), getDefaultHostnameVerifier());
+    }
+
+    @Override
+    public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host,
+            InetSocketAddress remoteAddress, InetSocketAddress localAddress, HttpContext context)
+            throws IOException {
+        // the handshake happens in here, but is recorded by createLayeredSocket
+        long tlsBefore = PhaseTimings.recorded(Phase.TLS);
+        long start = System.nanoTime();
+        try {
+            return super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress,
+                    context);
+        } finally {
+            long tls = PhaseTimings.recorded(Phase.TLS) - tlsBefore;
+            PhaseTimings.record(Phase.CONNECT, System.nanoTime() - start - tls);
+        }
+    }
+
+    @Override
+    public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context)
+            throws IOException {
+        long start = System.nanoTime();
+        try {
+            return super.createLayeredSocket(socket, target, port, context);
+        } finally {
+            PhaseTimings.record(Phase.TLS, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Where the time of one request went, in nanoseconds per {@link Phase}. Phases that did not happen,
+ * e.g. connecting if a pooled connection was reused, or that the transport can not measure, are
+ * reported as -1. The pooled HttpClient behind
+ * {@link ApiTesterModule#createPooledTestState(ConnectionPoolConfig)} and
+ * {@link ApiTesterModule#createSharedTestState()} measures all phases, the single connection
+ * client of the default {@link TestState} all but {@link Phase#POOL_WAIT}, other transports only
+ * the body read.
+ *
+ * @author hschuetz
+ *
+ */
+public class PhaseTimings {
+
+    /**
+     * Parts of a request, in the order they happen.
+     */
+    public enum Phase {
+        /** waiting for a connection from the pool */
+        POOL_WAIT,
+        /** resolving the host name */
+        DNS,
+        /** opening the TCP connection */
+        CONNECT,
+        /** TLS handshake */
+        TLS,
+        /** writing request line, headers and body */
+        REQUEST_WRITE,
+        /** from the request being written until the response headers were read */
+        TIME_TO_FIRST_BYTE,
+        /** reading the response body */
+        BODY_READ;
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final ThreadLocal<PhaseTimings> CURRENT = new ThreadLocal<PhaseTimings>();
+
+    private final long[] nanos = new long[PHASES.length];
+
+    public PhaseTimings() {
+        Arrays.fill(nanos, -1);
+    }
+
+    /**
+     * @param phase
+     * @return time spent in the given phase, -1 if not measured
+     */
+    public long getNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    /**
+     * @param phase
+     * @return whether the given phase happened and was measured
+     */
+    public boolean isMeasured(Phase phase) {
+        return nanos[phase.ordinal()] >= 0;
+    }
+
+    void add(Phase phase, long phaseNanos) {
+        int index = phase.ordinal();
+        nanos[index] = Math.max(0, nanos[index]) + phaseNanos;
+    }
+
+    /**
+     * Makes the instrumented client components record into a new instance for all requests sent
+     * by the current thread until {@link #stop()} is called.
+     *
+     * @return
+     */
+    static PhaseTimings start() {
+        PhaseTimings timings = new PhaseTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Adds to the given phase of the request the current thread is sending, if any.
+     *
+     * @param phase
+     * @param phaseNanos
+     */
+    static void record(Phase phase, long phaseNanos) {
+        PhaseTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.add(phase, phaseNanos);
+        }
+    }
+
+    /**
+     * @param phase
+     * @return time recorded so far for the given phase of the request the current thread is
+     *         sending, 0 if none
+     */
+    static long recorded(Phase phase) {
+        PhaseTimings timings = CURRENT.get();
+        return timings != null ? Math.max(0, timings.getNanos(phase)) : 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("PhaseTimings{");
+        for (Phase phase : PHASES) {
+            if (isMeasured(phase)) {
+                if (result.length() > "PhaseTimings{".length()) {
+                    result.append(", ");
+                }
+                result.append(phase.name().toLowerCase(Locale.ENGLISH)).append('=')
+                        .append(String.format("%.3fms", getNanos(phase) / 1e6));
+            }
+        }
+        return result.append('}').toString();
+    }
+}
@@ -18,7 +18,6 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.Map;
 
-import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpPost;
 
 import de.devbliss.apitester.factory.PostFactory;
@@ -75,31 +74,18 @@ public class Poster {
 
     public static Context post(URI uri, Object payload, TestState testState, PostFactory postFactory, Map<String, String> additionalHeaders)
             throws IOException {
+        return post(uri, payload, testState, postFactory, additionalHeaders, ResponseMode.FULL);
+    }
+
+    public static Context post(URI uri, Object payload, TestState testState, PostFactory postFactory, Map<String, String> additionalHeaders,
+            ResponseMode responseMode) throws IOException {
 
         if (postFactory == null) {
             postFactory = ApiTesterModule.createPostFactory();
         }
 
-        if (testState == null) {
-            testState = ApiTesterModule.createTestState();
-        }
-
         HttpPost request = postFactory.createPostRequest(uri, payload);
 
-        if(additionalHeaders != null) {
-        	for (String headerName : additionalHeaders.keySet()) {
-        		request.addHeader(headerName, additionalHeaders.get(headerName));
-			}
-        }
-
-        // IMPORTANT: we have to get the cookies from the testState before making the request
-        // because this request could add some cookie to the testState (e.g: the response could have
-        // a Set-Cookie header)
-        ApiRequest apiRequest =
-                ApiTestUtil.convertToApiRequest(uri, request, testState.getCookies());
-
-        HttpResponse response = testState.client.execute(request);
-        ApiResponse apiResponse = ApiTestUtil.convertToApiResponse(response);
-        return new Context(apiResponse, apiRequest);
+        return RequestPipeline.execute(uri, request, testState, additionalHeaders, responseMode);
     }
 }
@@ -18,7 +18,6 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.Map;
 
-import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpPut;
 
 import de.devbliss.apitester.factory.DeleteFactory;
@@ -81,31 +80,18 @@ public class Putter {
 
     public static Context put(URI uri, TestState testState, PutFactory putFactory, Object payload, Map<String, String> additionalHeaders)
             throws IOException {
+        return put(uri, testState, putFactory, payload, additionalHeaders, ResponseMode.FULL);
+    }
+
+    public static Context put(URI uri, TestState testState, PutFactory putFactory, Object payload, Map<String, String> additionalHeaders,
+            ResponseMode responseMode) throws IOException {
 
         if (putFactory == null) {
             putFactory = ApiTesterModule.createPutFactory();
         }
 
-        if (testState == null) {
-            testState = ApiTesterModule.createTestState();
-        }
-
         HttpPut request = putFactory.createPutRequest(uri, payload);
 
-        if(additionalHeaders != null) {
-        	for (String headerName : additionalHeaders.keySet()) {
-        		request.addHeader(headerName, additionalHeaders.get(headerName));
-			}
-        }
-
-        // IMPORTANT: we have to get the cookies from the testState before making the request
-        // because this request could add some cookie to the testState (e.g: the response could have
-        // a Set-Cookie header)
-        ApiRequest apiRequest =
-                ApiTestUtil.convertToApiRequest(uri, request, testState.getCookies());
-
-        HttpResponse response = testState.client.execute(request);
-        ApiResponse apiResponse = ApiTestUtil.convertToApiResponse(response);
-        return new Context(apiResponse, apiRequest);
+        return RequestPipeline.execute(uri, request, testState, additionalHeaders, responseMode);
     }
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+/**
+ * Settings for a run of {@link ConstantRateRunner}.
+ *
+ * @author hschuetz
+ *
+ */
+public class RateConfig {
+
+    public static final int DEFAULT_MAX_OUTSTANDING = 50;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 1000;
+
+    private double requestsPerSecond;
+    private long durationMillis;
+    private int maxOutstanding = DEFAULT_MAX_OUTSTANDING;
+    private long maxDelayMillis = DEFAULT_MAX_DELAY_MILLIS;
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * @param requestsPerSecond rate at which the scenario is started, no matter how long it takes
+     */
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * @param durationMillis time during which scenarios are started
+     */
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public int getMaxOutstanding() {
+        return maxOutstanding;
+    }
+
+    /**
+     * @param maxOutstanding maximum number of scenarios running at the same time, which is also
+     *            the number of threads. The connection pool should allow as many connections to
+     *            the host under test, see {@link ConnectionPoolConfig#setMaxPerRoute(int)}.
+     */
+    public void setMaxOutstanding(int maxOutstanding) {
+        this.maxOutstanding = maxOutstanding;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    /**
+     * @param maxDelayMillis a scenario that can not be started within this time after it was due,
+     *            because {@link #setMaxOutstanding(int)} scenarios are still running, is dropped.
+     *            A value < 0 means scenarios are never dropped, only delayed.
+     */
+    public void setMaxDelayMillis(long maxDelayMillis) {
+        this.maxDelayMillis = maxDelayMillis;
+    }
+}
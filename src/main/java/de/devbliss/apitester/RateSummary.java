@@ -0,0 +1,103 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.util.List;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Result of a run of {@link ConstantRateRunner}. The latency of each scenario is measured from the
+ * time it was due to start, so it includes any time it had to wait because the client could not
+ * keep up. {@link #getServiceTimeNanos(double)} leaves that wait out and shows what a closed loop
+ * would have measured.
+ *
+ * Dropped scenarios are part of the latency histogram as well, each with the time from when it was
+ * due until it was given up, about {@link RateConfig#getMaxDelayMillis()}. That is a lower bound
+ * of the latency it would have had, but leaving them out would hide exactly the slots where the
+ * server fell behind. The latency histogram therefore counts the successful iterations plus the
+ * dropped ones, while the service time histogram only counts the successful iterations.
+ *
+ * @author hschuetz
+ *
+ */
+public class RateSummary extends LoadSummary {
+
+    private final double requestsPerSecond;
+    private final long dropped;
+    private final long delayed;
+    private final Histogram serviceTime;
+
+    RateSummary(double requestsPerSecond, long iterations, long errors, long dropped,
+            long delayed, long elapsedNanos, Histogram latency, Histogram serviceTime,
+            List<Throwable> failures) {
+        super(iterations, errors, elapsedNanos, latency, failures);
+        this.requestsPerSecond = requestsPerSecond;
+        this.dropped = dropped;
+        this.delayed = delayed;
+        this.serviceTime = serviceTime;
+    }
+
+    /**
+     * @return the rate the scenarios were supposed to start at
+     */
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * @return number of scenarios not run at all, because they could not be started within
+     *         {@link RateConfig#getMaxDelayMillis()}. Their wait is recorded in the latency
+     *         histogram.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return number of scenarios started more than
+     *         {@link ConstantRateRunner#DELAY_TOLERANCE_MICROS} after they were due
+     */
+    public long getDelayed() {
+        return delayed;
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g. 99.9
+     * @return time from the actual start to the end of the scenario in nanoseconds at the given
+     *         percentile
+     */
+    public long getServiceTimeNanos(double percentile) {
+        return serviceTime.getValueAtPercentile(percentile);
+    }
+
+    /**
+     * @return copy of the service time histogram
+     */
+    public Histogram getServiceTime() {
+        return serviceTime.copy();
+    }
+
+    @Override
+    void appendFields(StringBuilder result) {
+        result.append("requestsPerSecond=").append(requestsPerSecond)
+                .append(", dropped=").append(dropped)
+                .append(", delayed=").append(delayed)
+                .append(", ");
+        super.appendFields(result);
+        result.append(", ");
+        appendPercentiles(result, "serviceTimeMillis", serviceTime);
+    }
+}
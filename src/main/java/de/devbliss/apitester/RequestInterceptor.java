@@ -0,0 +1,68 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.io.IOException;
+
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * Hooks into every request sent with a {@link TestState} it was added to, see
+ * {@link TestState#addInterceptor(RequestInterceptor)}, no matter whether it is sent by
+ * {@link ApiTest} or one of the static verbs like {@link Getter}. Use it for what all requests
+ * need, e.g. authentication headers, logging or checks of each response.
+ *
+ * {@link #beforeSend(HttpUriRequest)} is called in the order the interceptors were added,
+ * {@link #afterReceive(Context)} and {@link #onError(HttpUriRequest, Exception)} in the reverse
+ * order, so the first interceptor added wraps all others. Extend {@link RequestInterceptorAdapter}
+ * to implement only some of the methods.
+ *
+ * Interceptors are called by every thread sending requests with the state, so they must be thread
+ * safe if the state is shared.
+ *
+ * @author hschuetz
+ *
+ */
+public interface RequestInterceptor {
+
+    /**
+     * Called before the request is captured as {@link ApiRequest} and sent, after the additional
+     * headers were added.
+     *
+     * @param request may be changed, e.g. by adding headers
+     * @throws IOException stops the request, without calling
+     *             {@link #onError(HttpUriRequest, Exception)}
+     */
+    void beforeSend(HttpUriRequest request) throws IOException;
+
+    /**
+     * Called after the response was received and converted.
+     *
+     * @param context
+     * @return the context to pass on to the next interceptor and finally to the caller, usually
+     *         the given one
+     * @throws IOException
+     */
+    Context afterReceive(Context context) throws IOException;
+
+    /**
+     * Called if sending the request or reading the response failed. The exception is thrown on
+     * to the caller after all interceptors were called.
+     *
+     * @param request
+     * @param e an {@link IOException} or a {@link RuntimeException}
+     */
+    void onError(HttpUriRequest request, Exception e);
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.io.IOException;
+
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * {@link RequestInterceptor} doing nothing, extend it to override only the methods needed.
+ *
+ * @author hschuetz
+ *
+ */
+public abstract class RequestInterceptorAdapter implements RequestInterceptor {
+
+    public void beforeSend(HttpUriRequest request) throws IOException {
+    }
+
+    public Context afterReceive(Context context) throws IOException {
+        return context;
+    }
+
+    public void onError(HttpUriRequest request, Exception e) {
+    }
+}
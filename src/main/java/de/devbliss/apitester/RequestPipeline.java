@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+
+import de.devbliss.apitester.PhaseTimings.Phase;
+
+/**
+ * The steps every request built by {@link Getter}, {@link Poster}, {@link Putter},
+ * {@link Patcher} or {@link Deleter}, and thus by {@link ApiTest}, goes through: adding the
+ * additional headers, calling the {@link RequestInterceptor}s of the state, capturing the
+ * {@link ApiRequest}, sending the request, converting the response and recording the latency.
+ *
+ * @author hschuetz
+ *
+ */
+final class RequestPipeline {
+
+    private RequestPipeline() {
+    }
+
+    /**
+     * @param uri
+     * @param request as built by a factory
+     * @param testState or null for a new shared state, see
+     *            {@link ApiTesterModule#createSharedTestState()}
+     * @param additionalHeaders or null
+     * @param responseMode
+     * @return
+     * @throws IOException
+     */
+    static Context execute(URI uri, HttpUriRequest request, TestState testState,
+            Map<String, String> additionalHeaders, ResponseMode responseMode) throws IOException {
+
+        if (testState == null) {
+            testState = ApiTesterModule.createSharedTestState();
+        }
+
+        if (additionalHeaders != null) {
+            for (Map.Entry<String, String> header : additionalHeaders.entrySet()) {
+                request.addHeader(header.getKey(), header.getValue());
+            }
+        }
+
+        // read once, so interceptors added meanwhile by other threads see whole requests only
+        RequestInterceptor[] interceptors = testState.getInterceptorArray();
+        for (RequestInterceptor interceptor : interceptors) {
+            interceptor.beforeSend(request);
+        }
+
+        // IMPORTANT: we have to get the cookies from the testState before making the request
+        // because this request could add some cookie to the testState (e.g: the response could have
+        // a Set-Cookie header)
+        ApiRequest apiRequest =
+                ApiTestUtil.convertToApiRequest(uri, request, testState.cookieStore);
+
+        Context context;
+        try {
+            context = send(uri, request, apiRequest, testState, responseMode);
+        } catch (IOException e) {
+            onError(interceptors, request, e);
+            throw e;
+        } catch (RuntimeException e) {
+            onError(interceptors, request, e);
+            throw e;
+        }
+
+        for (int i = interceptors.length - 1; i >= 0; i--) {
+            context = interceptors[i].afterReceive(context);
+        }
+        return context;
+    }
+
+    private static Context send(URI uri, HttpUriRequest request, ApiRequest apiRequest,
+            TestState testState, ResponseMode responseMode) throws IOException {
+        PhaseTimings timings = PhaseTimings.start();
+        long start = System.nanoTime();
+        HttpResponse response;
+        try {
+            response = testState.execute(request);
+        } finally {
+            PhaseTimings.stop();
+        }
+        long bodyStart = System.nanoTime();
+        ApiResponse apiResponse = ApiTestUtil.convertToApiResponse(response, responseMode);
+        long end = System.nanoTime();
+        timings.add(Phase.BODY_READ, end - bodyStart);
+        ApiTesterModule.recordLatency(apiRequest.httpMethod, uri, end - start, timings);
+        return new Context(apiResponse, apiRequest, end - start, timings);
+    }
+
+    private static void onError(RequestInterceptor[] interceptors, HttpUriRequest request,
+            Exception e) {
+        for (int i = interceptors.length - 1; i >= 0; i--) {
+            interceptors[i].onError(request, e);
+        }
+    }
+}
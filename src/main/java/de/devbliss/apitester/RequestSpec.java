@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import de.devbliss.apitester.ApiTest.HTTP_REQUEST;
+
+/**
+ * One request of a batch sent with {@link ApiTest#executeAll(java.util.List)}, created with one of
+ * the static methods for each verb. The request is built with the default factory of the
+ * {@link ApiTest} when it is sent.
+ *
+ * @author hschuetz
+ *
+ */
+public class RequestSpec {
+
+    private final HTTP_REQUEST method;
+    private final URI uri;
+    private final Object payload;
+    private Map<String, String> headers;
+
+    private RequestSpec(HTTP_REQUEST method, URI uri, Object payload) {
+        if (uri == null) {
+            throw new IllegalArgumentException("URI must not be null");
+        }
+        this.method = method;
+        this.uri = uri;
+        this.payload = payload;
+    }
+
+    public static RequestSpec get(URI uri) {
+        return new RequestSpec(HTTP_REQUEST.GET, uri, null);
+    }
+
+    public static RequestSpec post(URI uri, Object payload) {
+        return new RequestSpec(HTTP_REQUEST.POST, uri, payload);
+    }
+
+    public static RequestSpec put(URI uri, Object payload) {
+        return new RequestSpec(HTTP_REQUEST.PUT, uri, payload);
+    }
+
+    public static RequestSpec patch(URI uri, Object payload) {
+        return new RequestSpec(HTTP_REQUEST.PATCH, uri, payload);
+    }
+
+    public static RequestSpec delete(URI uri) {
+        return new RequestSpec(HTTP_REQUEST.DELETE, uri, null);
+    }
+
+    public static RequestSpec delete(URI uri, Object payload) {
+        return new RequestSpec(HTTP_REQUEST.DELETE, uri, payload);
+    }
+
+    /**
+     * Adds a header to send with this request, replacing one with the same name added before.
+     *
+     * @param name
+     * @param value
+     * @return this spec
+     */
+    public RequestSpec withHeader(String name, String value) {
+        if (headers == null) {
+            headers = new LinkedHashMap<String, String>();
+        }
+        headers.put(name, value);
+        return this;
+    }
+
+    public HTTP_REQUEST getMethod() {
+        return method;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    /**
+     * @return null if the request has no payload
+     */
+    public Object getPayload() {
+        return payload;
+    }
+
+    public Map<String, String> getHeaders() {
+        if (headers == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(headers);
+    }
+
+    Context execute(ApiTest apiTest) throws IOException {
+        switch (method) {
+            case GET:
+                return apiTest.get(uri, headers);
+            case POST:
+                return apiTest.post(uri, payload, headers);
+            case PUT:
+                return apiTest.put(uri, payload, headers);
+            case PATCH:
+                return apiTest.patch(uri, payload, headers);
+            case DELETE:
+                return apiTest.delete(uri, payload, headers);
+            default:
+                throw new IllegalStateException("Unknown method " + method);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + uri;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+/**
+ * Tells how much of a response is kept in the resulting {@link ApiResponse}, see
+ * {@link ApiTest#setResponseMode(ResponseMode)}.
+ *
+ * @author hschuetz
+ *
+ */
+public enum ResponseMode {
+
+    /**
+     * Keeps the body, so it can be read with {@link ApiResponse#getPayload()}.
+     */
+    FULL,
+
+    /**
+     * Reads the body into a reused buffer and forgets it, only its length is kept in
+     * {@link ApiResponse#bytesReceived}. Meant for load tests that only check status and headers.
+     */
+    DISCARD_BODY;
+}
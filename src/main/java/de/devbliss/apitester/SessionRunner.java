@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many {@link ApiTest} sessions at the same time, each on its own thread and with its own
+ * {@link TestState}, i.e. its own cookies. All sessions share one pooled HTTP client, so the
+ * {@link ConnectionPoolConfig} given to the constructor limits how many requests are actually on
+ * the wire at once. Sessions that find the pool exhausted simply wait for a connection.
+ *
+ * With {@link ThreadMode#VIRTUAL}, every session runs on a virtual thread, which allows for
+ * thousands of sessions without running out of platform threads. This needs a Java 21 or newer
+ * runtime, see {@link #isVirtualThreadSupported()}. The request path of {@link Getter},
+ * {@link Poster}, {@link Putter}, {@link Patcher} and {@link Deleter} does not block while holding
+ * a monitor, so virtual threads never get pinned to their carrier thread by it. This includes
+ * waiting for a free connection of the pool, see {@link LeaseGatedConnectionManager}.
+ *
+ * @author hschuetz
+ *
+ */
+public class SessionRunner {
+
+    /**
+     * What kind of thread each session runs on.
+     */
+    public enum ThreadMode {
+        PLATFORM, VIRTUAL;
+    }
+
+    /**
+     * One simulated user.
+     */
+    public interface Session {
+
+        /**
+         * @param apiTest instance holding the state of this session only
+         * @throws Exception makes the session count as failed
+         */
+        void run(ApiTest apiTest) throws Exception;
+    }
+
+    private final ThreadMode threadMode;
+    private final TestState pooledTestState;
+
+    /**
+     * @param threadMode
+     * @param config pool shared by all sessions of this runner
+     */
+    public SessionRunner(ThreadMode threadMode, ConnectionPoolConfig config) {
+        if (threadMode == ThreadMode.VIRTUAL && !isVirtualThreadSupported()) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or newer");
+        }
+        this.threadMode = threadMode;
+        this.pooledTestState = ApiTesterModule.createPooledTestState(config);
+    }
+
+    /**
+     * Tells whether the running JVM supports {@link ThreadMode#VIRTUAL}.
+     *
+     * @return
+     */
+    public static boolean isVirtualThreadSupported() {
+        return findVirtualThreadExecutorFactory() != null;
+    }
+
+    /**
+     * Runs the given number of sessions at the same time and waits until all of them are done.
+     *
+     * @param sessions
+     * @param session
+     * @return the failures of all sessions that failed, empty if all succeeded
+     * @throws InterruptedException
+     */
+    public List<Throwable> run(int sessions, final Session session) throws InterruptedException {
+        ExecutorService executor = createExecutor();
+        List<Future<Void>> results = new ArrayList<Future<Void>>(sessions);
+
+        try {
+            for (int i = 0; i < sessions; i++) {
+                final ApiTest apiTest = new ApiTest();
+                apiTest.setTestState(ApiTesterModule.createTestStateSharingClient(pooledTestState));
+                results.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        session.run(apiTest);
+                        return null;
+                    }
+                }));
+            }
+
+            List<Throwable> failures = new ArrayList<Throwable>();
+            for (Future<Void> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                }
+            }
+            return failures;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Shutdown, closing the connections of the pool shared by all sessions.
+     */
+    public void shutdown() {
+        pooledTestState.shutdown();
+    }
+
+    private ExecutorService createExecutor() {
+        if (threadMode == ThreadMode.VIRTUAL) {
+            try {
+                return (ExecutorService) findVirtualThreadExecutorFactory().invoke(null);
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not create virtual thread executor", e);
+            }
+        }
+        return Executors.newCachedThreadPool();
+    }
+
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -16,18 +16,31 @@ package de.devbliss.apitester;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.CookieStore;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
 
 import com.google.inject.Inject;
 
+import de.devbliss.apitester.transport.Transport;
+import de.devbliss.apitester.transport.impl.HttpClientTransport;
+
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * Currently, this only holds an instance of {@link HttpClient}. Use the same instance of this e.g.
- * if you need to make a sequence of HTTP calls and want the state (mostly cookies) to be remembered
- * for all calls.
+ * Holds the {@link Transport} sending the requests and the cookies. Use the same instance of this
+ * e.g. if you need to make a sequence of HTTP calls and want the state (mostly cookies) to be
+ * remembered for all calls.
+ * 
+ * A state created by {@link ApiTesterModule#createTestState()} must only be used by one thread at a
+ * time. If several threads should share the same state, create it with
+ * {@link ApiTesterModule#createPooledTestState(ConnectionPoolConfig)} instead.
  * 
  * @author hschuetz
  * 
@@ -35,13 +48,55 @@ import java.util.List;
 // Not singleton. ever.
 public class TestState {
 
+    private static final RequestInterceptor[] NO_INTERCEPTORS = new RequestInterceptor[0];
+
+    /**
+     * Client sending the requests, or null if this state uses a {@link Transport} that is not
+     * based on HttpClient.
+     *
+     * @deprecated use {@link #transport}
+     */
+    @Deprecated
     public final HttpClient client;
+    public final Transport transport;
     public final CookieStore cookieStore;
+    private final boolean sharedTransport;
+    private volatile RequestInterceptor[] interceptors = NO_INTERCEPTORS;
+    private boolean singleConnection;
 
     @Inject
     public TestState(HttpClient httpClient, CookieStore cookieStore) {
+        this(httpClient, new HttpClientTransport(httpClient), cookieStore, false);
+    }
+
+    public TestState(Transport transport, CookieStore cookieStore) {
+        this(transport, cookieStore, false);
+    }
+
+    TestState(Transport transport, CookieStore cookieStore, boolean sharedTransport) {
+        this(transport instanceof HttpClientTransport ? ((HttpClientTransport) transport)
+                .getClient() : null, transport, cookieStore, sharedTransport);
+    }
+
+    private TestState(HttpClient httpClient, Transport transport, CookieStore cookieStore,
+            boolean sharedTransport) {
         this.client = httpClient;
+        this.transport = transport;
         this.cookieStore = cookieStore;
+        this.sharedTransport = sharedTransport;
+    }
+
+    /**
+     * Executes the given request with the transport of this state. Cookies are always read from
+     * and written to the cookie store of this state, even if the transport is shared with other
+     * states.
+     *
+     * @param request
+     * @return the response
+     * @throws IOException
+     */
+    public HttpResponse execute(HttpUriRequest request) throws IOException {
+        return transport.execute(request, cookieStore);
     }
 
     /**
@@ -83,6 +138,10 @@ public class TestState {
      * @return All of the cookies in the cookie store.
      */
     public List<Cookie> getCookies() {
+        return getCookies(cookieStore);
+    }
+
+    static List<Cookie> getCookies(CookieStore cookieStore) {
         return Lists.transform(cookieStore.getCookies(), new Function<org.apache.http.cookie.Cookie, Cookie>() {
             public Cookie apply(@Nullable org.apache.http.cookie.Cookie cookie) {
                 return new Cookie(cookie);
@@ -107,9 +166,69 @@ public class TestState {
     }
 
     /**
-     * Shutdown, closing any active HTTP connections
+     * Adds an interceptor called for every request sent with this state after those added before.
+     *
+     * @param interceptor
+     */
+    public synchronized void addInterceptor(RequestInterceptor interceptor) {
+        if (interceptor == null) {
+            throw new IllegalArgumentException("Interceptor must not be null");
+        }
+        RequestInterceptor[] added = Arrays.copyOf(interceptors, interceptors.length + 1);
+        added[interceptors.length] = interceptor;
+        interceptors = added;
+    }
+
+    /**
+     * @param interceptor
+     * @return whether the interceptor had been added before
+     */
+    public synchronized boolean removeInterceptor(RequestInterceptor interceptor) {
+        List<RequestInterceptor> remaining =
+                new ArrayList<RequestInterceptor>(Arrays.asList(interceptors));
+        boolean removed = remaining.remove(interceptor);
+        interceptors = remaining.toArray(new RequestInterceptor[remaining.size()]);
+        return removed;
+    }
+
+    /**
+     * @return the interceptors in the order they were added
+     */
+    public List<RequestInterceptor> getInterceptors() {
+        return Collections.unmodifiableList(Arrays.asList(interceptors.clone()));
+    }
+
+    /**
+     * @return the interceptors without copying them, must not be changed
+     */
+    RequestInterceptor[] getInterceptorArray() {
+        return interceptors;
+    }
+
+    synchronized void setInterceptors(RequestInterceptor[] interceptors) {
+        this.interceptors = interceptors;
+    }
+
+    /**
+     * @return whether the transport is known to hold a single connection, so requests must not
+     *         be sent concurrently, as by the state created by
+     *         {@link ApiTesterModule#createTestState()}
+     */
+    boolean isSingleConnection() {
+        return singleConnection;
+    }
+
+    void setSingleConnection(boolean singleConnection) {
+        this.singleConnection = singleConnection;
+    }
+
+    /**
+     * Shutdown, closing any active HTTP connections. Does nothing if the transport is shared, see
+     * {@link ApiTesterModule#createSharedTestState()}.
      */
     public void shutdown() {
-        client.getConnectionManager().shutdown();
+        if (!sharedTransport) {
+            transport.shutdown();
+        }
     }
 }
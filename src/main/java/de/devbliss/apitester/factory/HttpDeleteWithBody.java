@@ -16,10 +16,11 @@ package de.devbliss.apitester.factory;
 
 import java.net.URI;
 
-import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 
-@NotThreadSafe
+@Contract(threading = ThreadingBehavior.UNSAFE)
 public class HttpDeleteWithBody extends HttpEntityEnclosingRequestBase {
     private static final String METHOD_NAME = "DELETE";
 
@@ -44,7 +44,7 @@ public class DefaultDeleteFactory implements DeleteFactory {
         HttpDeleteWithBody request = new HttpDeleteWithBody(uri);
 
         if (payload != null) {
-            request.setEntity(entityBuilder.buildEntity(payload));
+            request.setEntity(entityBuilder.buildStreamingEntity(payload));
         }
 
         return request;
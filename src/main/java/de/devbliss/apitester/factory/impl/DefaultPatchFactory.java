@@ -39,7 +39,7 @@ public class DefaultPatchFactory implements PatchFactory {
         HttpPatch request = new HttpPatch(uri);
 
         if (payload != null) {
-            request.setEntity(entityBuilder.buildEntity(payload));
+            request.setEntity(entityBuilder.buildStreamingEntity(payload));
         }
 
         return request;
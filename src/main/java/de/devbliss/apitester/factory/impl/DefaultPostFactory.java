@@ -40,7 +40,7 @@ public class DefaultPostFactory implements PostFactory {
         HttpPost request = new HttpPost(uri);
 
         if (payload != null) {
-            request.setEntity(entityBuilder.buildEntity(payload));
+            request.setEntity(entityBuilder.buildStreamingEntity(payload));
         }
 
         return request;
@@ -40,7 +40,7 @@ public class DefaultPutFactory implements PutFactory {
         HttpPut request = new HttpPut(uri);
 
         if (payload != null) {
-            request.setEntity(entityBuilder.buildEntity(payload));
+            request.setEntity(entityBuilder.buildStreamingEntity(payload));
         }
 
         return request;
@@ -14,9 +14,11 @@
 
 package de.devbliss.apitester.factory.impl;
 
-import com.google.gson.Gson;
 import com.google.inject.Inject;
+import de.devbliss.apitester.ApiTesterModule;
+import de.devbliss.apitester.json.JsonCodec;
 import java.io.IOException;
+import org.apache.http.HttpEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 
@@ -29,11 +31,53 @@ import org.apache.http.entity.StringEntity;
 public class EntityBuilder {
 
     private static final String ENCODING = "UTF-8";
-    private final Gson gson = new Gson();
+    private final JsonCodec jsonCodec;
+    private final boolean chunked;
 
-    @Inject
+    /**
+     * Uses the codec shared by ApiTester, see {@link ApiTesterModule#getJsonCodec()}.
+     */
     public EntityBuilder() {
+        this(ApiTesterModule.getJsonCodec());
+    }
+
+    @Inject
+    public EntityBuilder(JsonCodec jsonCodec) {
+        this(jsonCodec, false);
+    }
+
+    /**
+     * Pass a builder created with this to the constructor of a default factory, e.g.
+     * {@link DefaultPostFactory#DefaultPostFactory(EntityBuilder)}, to send its JSON payloads
+     * chunked.
+     *
+     * @param jsonCodec
+     * @param chunked true to send JSON payloads chunked, see {@link #buildStreamingEntity(Object)}
+     */
+    public EntityBuilder(JsonCodec jsonCodec, boolean chunked) {
+        this.jsonCodec = jsonCodec;
+        this.chunked = chunked;
+    }
+
+    /**
+     * Like {@link #buildEntity(Object)}, but payloads that are no strings are serialized to JSON
+     * only while the entity is sent, see {@link JsonEntity}. Used by the default factories. Unless
+     * this builder was created to send chunked, the length is computed up front, so the request
+     * has a Content-Length header as with {@link #buildEntity(Object)}.
+     * 
+     * @param payload payload which must not be null
+     * @return entity
+     * @throws IOException
+     */
+    public HttpEntity buildStreamingEntity(Object payload) throws IOException {
+        if (payload instanceof String) {
+            return buildEntity(payload);
+        }
+        return new JsonEntity(payload, jsonCodec, !chunked);
+    }
 
+    public boolean isChunked() {
+        return chunked;
     }
 
     /**
@@ -52,7 +96,7 @@ public class EntityBuilder {
         if (payloadIsString) {
             payloadAsString = (String) payload;
         } else {
-            payloadAsString = gson.toJson(payload);
+            payloadAsString = jsonCodec.toJson(payload);
         }
 
         StringEntity entity = new StringEntity(payloadAsString, ENCODING);
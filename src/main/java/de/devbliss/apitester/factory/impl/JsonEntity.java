@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.factory.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import de.devbliss.apitester.json.JsonCodec;
+
+/**
+ * Entity serializing its payload to JSON only while it is written to the connection, so the JSON
+ * never exists in memory as a whole, only a small buffer of it. Either the length is unknown and
+ * the body is sent chunked, or the entity computes its length up front, at the price of
+ * serializing the payload twice, so it is sent with a Content-Length header.
+ *
+ * The entity is repeatable, e.g. for retries, since each {@link #writeTo(OutputStream)}
+ * serializes the payload again. The payload must therefore not be changed while the request is
+ * in use. Transports that need the body as a stream instead of writing it get it from
+ * {@link #getContent()}, which has to serialize to a byte array first.
+ *
+ * @author hschuetz
+ *
+ */
+public class JsonEntity extends AbstractHttpEntity {
+
+    private static final int CONTENT_BUFFER_SIZE = 8 * 1024;
+
+    private final Object payload;
+    private final JsonCodec jsonCodec;
+    private final long contentLength;
+
+    /**
+     * Creates an entity sent chunked.
+     *
+     * @param payload
+     * @param jsonCodec
+     */
+    public JsonEntity(Object payload, JsonCodec jsonCodec) {
+        this(payload, jsonCodec, false);
+    }
+
+    /**
+     * @param payload
+     * @param jsonCodec
+     * @param knownLength true to compute the length by serializing the payload once in advance,
+     *            so it is sent with a Content-Length header instead of chunked
+     */
+    public JsonEntity(Object payload, JsonCodec jsonCodec, boolean knownLength) {
+        this.payload = payload;
+        this.jsonCodec = jsonCodec;
+        setContentType(ContentType.APPLICATION_JSON.getMimeType());
+        setChunked(!knownLength);
+
+        if (knownLength) {
+            CountingOutputStream counter = new CountingOutputStream();
+            try {
+                writeTo(counter);
+            } catch (IOException e) {
+                // cannot happen, nothing is written anywhere
+                throw new IllegalStateException(e);
+            }
+            contentLength = counter.count;
+        } else {
+            contentLength = -1;
+        }
+    }
+
+    public Object getPayload() {
+        return payload;
+    }
+
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream(
+                contentLength >= 0 ? (int) contentLength : CONTENT_BUFFER_SIZE);
+        writeTo(content);
+        return new ByteArrayInputStream(content.toByteArray());
+    }
+
+    public void writeTo(OutputStream outstream) throws IOException {
+        Writer writer = new Utf8Writer(outstream);
+        jsonCodec.toJson(payload, writer);
+        writer.flush();
+    }
+
+    public boolean isStreaming() {
+        return false;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
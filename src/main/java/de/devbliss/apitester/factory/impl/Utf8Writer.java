@@ -0,0 +1,135 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.factory.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Writer encoding to UTF-8 through a small buffer of its own. An {@link java.io.OutputStreamWriter}
+ * always allocates an 8 kB buffer, which is several times the JSON of a typical payload. Like it,
+ * writes a '?' for a surrogate without its counterpart. Not thread safe.
+ *
+ * @author hschuetz
+ *
+ */
+class Utf8Writer extends Writer {
+
+    static final int BUFFER_SIZE = 512;
+
+    private static final byte REPLACEMENT = '?';
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    // high surrogate waiting for its low surrogate, or 0
+    private char highSurrogate;
+
+    Utf8Writer(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        encode((char) c);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            encode(chars[i]);
+        }
+    }
+
+    @Override
+    public void write(String string, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            encode(string.charAt(i));
+        }
+    }
+
+    /**
+     * Writes the buffer to the stream and flushes it. A pending high surrogate is kept, as its low
+     * surrogate may still follow.
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            put(REPLACEMENT);
+        }
+        flush();
+        out.close();
+    }
+
+    private void encode(char c) throws IOException {
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                ensureCapacity(4);
+                buffer[position++] = (byte) (0xf0 | codePoint >> 18);
+                buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                buffer[position++] = (byte) (0x80 | codePoint & 0x3f);
+                return;
+            }
+            put(REPLACEMENT);
+        }
+
+        if (c < 0x80) {
+            put((byte) c);
+        } else if (c < 0x800) {
+            ensureCapacity(2);
+            buffer[position++] = (byte) (0xc0 | c >> 6);
+            buffer[position++] = (byte) (0x80 | c & 0x3f);
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            put(REPLACEMENT);
+        } else {
+            ensureCapacity(3);
+            buffer[position++] = (byte) (0xe0 | c >> 12);
+            buffer[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+            buffer[position++] = (byte) (0x80 | c & 0x3f);
+        }
+    }
+
+    private void put(byte b) throws IOException {
+        ensureCapacity(1);
+        buffer[position++] = b;
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (position + bytes > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
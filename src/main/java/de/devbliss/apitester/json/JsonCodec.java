@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+
+/**
+ * Converts payloads to and from JSON, for the entities built by the default factories as well as
+ * for {@link de.devbliss.apitester.ApiResponse#payloadJsonAs(Class)}. One instance is shared by
+ * all of them, see {@link de.devbliss.apitester.ApiTesterModule#setJsonCodec(JsonCodec)}, so
+ * implementations must be thread safe.
+ *
+ * @author hschuetz
+ *
+ */
+public interface JsonCodec {
+
+    /**
+     * @param value may be <code>null</code>
+     * @return the JSON representation of the value
+     */
+    String toJson(Object value);
+
+    /**
+     * Writes the JSON representation of the value to the given writer without flushing or closing
+     * it.
+     *
+     * @param value may be <code>null</code>
+     * @param writer
+     * @throws IOException
+     */
+    void toJson(Object value, Writer writer) throws IOException;
+
+    /**
+     * @param json
+     * @param type e.g. a class or the type of a {@link org.codehaus.jackson.type.TypeReference}
+     * @return the converted value, or <code>null</code> if the JSON is empty
+     */
+    <T> T fromJson(String json, Type type);
+
+    /**
+     * Reads the JSON from the given reader without closing it.
+     *
+     * @param json
+     * @param type e.g. a class or the type of a {@link org.codehaus.jackson.type.TypeReference}
+     * @return the converted value, or <code>null</code> if the JSON is empty
+     */
+    <T> T fromJson(Reader json, Type type);
+}
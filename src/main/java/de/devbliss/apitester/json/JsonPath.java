@@ -0,0 +1,273 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.json;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * Compiled path selecting values from a JSON document while it is parsed, without binding the
+ * whole document. Only the selected values are built, everything else is skipped, and parsing
+ * stops as soon as no further match is possible. E.g. <code>$.items[0].id</code> stops reading
+ * right after that id.
+ *
+ * Supported syntax:
+ * <ul>
+ * <li><code>$</code> the root, every path starts with it</li>
+ * <li><code>.name</code> or <code>['name']</code> a field of an object</li>
+ * <li><code>[2]</code> an element of an array</li>
+ * <li><code>[*]</code> or <code>.*</code> all elements of an array or all fields of an object</li>
+ * </ul>
+ *
+ * Compiled paths are immutable and kept in a cache, see {@link #compile(String)}.
+ *
+ * @author hschuetz
+ *
+ */
+public final class JsonPath {
+
+    private static final int CACHE_SIZE = 1000;
+    private static final LoadingCache<String, JsonPath> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(CACHE_SIZE).build(new CacheLoader<String, JsonPath>() {
+                @Override
+                public JsonPath load(String path) {
+                    return new JsonPath(path);
+                }
+            });
+
+    private final String path;
+    private final List<Segment> segments;
+
+    private JsonPath(String path) {
+        this.path = path;
+        this.segments = parse(path);
+    }
+
+    /**
+     * Returns the compiled form of the given path, compiling it only if it is not cached yet.
+     *
+     * @param path e.g. <code>$.items[*].id</code>
+     * @return
+     * @throws IllegalArgumentException if the path is not valid
+     */
+    public static JsonPath compile(String path) {
+        try {
+            return CACHE.getUnchecked(path);
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException) {
+                throw (IllegalArgumentException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Selects the values matching this path, in document order. Does not close the reader.
+     *
+     * @param json
+     * @param limit maximum number of values to select, parsing stops when it is reached
+     * @return the matching values, empty if there are none
+     * @throws JsonSyntaxException if the document is malformed before the last match
+     */
+    public List<JsonElement> select(Reader json, int limit) {
+        List<JsonElement> matches = new ArrayList<JsonElement>();
+        JsonReader reader = new JsonReader(json);
+        reader.setLenient(true);
+
+        try {
+            try {
+                reader.peek();
+            } catch (EOFException e) {
+                // empty document
+                return matches;
+            }
+            select(reader, 0, false, matches, limit);
+        } catch (MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+        return matches;
+    }
+
+    /**
+     * Selects the values matching the segments from the given depth on, starting at the value the
+     * reader is positioned at.
+     *
+     * @return true if no more matches can follow, so parsing can stop. If false, the value has
+     *         been consumed completely.
+     */
+    private boolean select(JsonReader reader, int depth, boolean underWildcard,
+            List<JsonElement> matches, int limit) throws IOException {
+        if (depth == segments.size()) {
+            matches.add(new JsonParser().parse(reader));
+            // if no wildcard led here, this was the only possible match
+            return matches.size() >= limit || !underWildcard;
+        }
+
+        Segment segment = segments.get(depth);
+        JsonToken token = reader.peek();
+
+        if (token == JsonToken.BEGIN_OBJECT && segment.index < 0) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (segment.wildcard || segment.name.equals(name)) {
+                    if (select(reader, depth + 1, underWildcard || segment.wildcard, matches,
+                            limit)) {
+                        return true;
+                    }
+                    if (!segment.wildcard) {
+                        skipRemaining(reader);
+                        break;
+                    }
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } else if (token == JsonToken.BEGIN_ARRAY && segment.name == null) {
+            reader.beginArray();
+            for (int i = 0; reader.hasNext(); i++) {
+                if (segment.wildcard || segment.index == i) {
+                    if (select(reader, depth + 1, underWildcard || segment.wildcard, matches,
+                            limit)) {
+                        return true;
+                    }
+                    if (!segment.wildcard) {
+                        skipRemaining(reader);
+                        break;
+                    }
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endArray();
+        } else {
+            reader.skipValue();
+        }
+
+        return !underWildcard;
+    }
+
+    private void skipRemaining(JsonReader reader) throws IOException {
+        while (reader.hasNext()) {
+            if (reader.peek() == JsonToken.NAME) {
+                reader.nextName();
+            }
+            reader.skipValue();
+        }
+    }
+
+    private static List<Segment> parse(String path) {
+        if (path == null || !path.startsWith("$")) {
+            throw invalid(path, "must start with $");
+        }
+
+        List<Segment> segments = new ArrayList<Segment>();
+        int position = 1;
+
+        while (position < path.length()) {
+            char c = path.charAt(position);
+
+            if (c == '.') {
+                int end = position + 1;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                String name = path.substring(position + 1, end);
+                if (name.isEmpty()) {
+                    throw invalid(path, "empty field name at " + position);
+                }
+                segments.add(name.equals("*") ? Segment.WILDCARD : new Segment(name, -1));
+                position = end;
+            } else if (c == '[') {
+                int end = path.indexOf(']', position);
+                if (end < 0) {
+                    throw invalid(path, "unclosed [ at " + position);
+                }
+                segments.add(parseBracket(path, path.substring(position + 1, end).trim()));
+                position = end + 1;
+            } else {
+                throw invalid(path, "unexpected '" + c + "' at " + position);
+            }
+        }
+
+        return segments;
+    }
+
+    private static Segment parseBracket(String path, String content) {
+        if (content.equals("*")) {
+            return Segment.WILDCARD;
+        }
+        if (content.length() >= 2 && (content.charAt(0) == '\'' || content.charAt(0) == '"')
+                && content.charAt(content.length() - 1) == content.charAt(0)) {
+            return new Segment(content.substring(1, content.length() - 1), -1);
+        }
+        try {
+            int index = Integer.parseInt(content);
+            if (index >= 0) {
+                return new Segment(null, index);
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw invalid(path, "no index or quoted name: [" + content + "]");
+    }
+
+    private static IllegalArgumentException invalid(String path, String reason) {
+        return new IllegalArgumentException("Invalid JSON path " + path + ": " + reason);
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    /**
+     * One step of a path: a field name, an array index or a wildcard.
+     */
+    private static class Segment {
+
+        static final Segment WILDCARD = new Segment(null, -1);
+
+        final String name;
+        final int index;
+        final boolean wildcard;
+
+        Segment(String name, int index) {
+            this.name = name;
+            this.index = index;
+            this.wildcard = name == null && index < 0;
+        }
+    }
+}
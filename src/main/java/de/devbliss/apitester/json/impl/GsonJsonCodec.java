@@ -0,0 +1,132 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.json.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import com.google.inject.Inject;
+
+import de.devbliss.apitester.json.JsonCodec;
+
+/**
+ * Default {@link JsonCodec} based on one {@link Gson} instance, which keeps the type adapters it
+ * creates, so reflecting over a DTO class happens only on its first conversion. For reading, the
+ * adapter of each type is additionally kept here, saving the lookup in Gson's synchronized cache.
+ * Behaves like {@link Gson#fromJson(Reader, Type)} and {@link Gson#toJson(Object)} otherwise.
+ *
+ * @author hschuetz
+ *
+ */
+public class GsonJsonCodec implements JsonCodec {
+
+    private final Gson gson;
+    private final ConcurrentMap<Type, TypeAdapter<?>> adapters =
+            new ConcurrentHashMap<Type, TypeAdapter<?>>();
+
+    @Inject
+    public GsonJsonCodec() {
+        this(new Gson());
+    }
+
+    /**
+     * @param gson configured as needed, e.g. with a {@link com.google.gson.GsonBuilder}
+     */
+    public GsonJsonCodec(Gson gson) {
+        this.gson = gson;
+    }
+
+    public String toJson(Object value) {
+        return gson.toJson(value);
+    }
+
+    public void toJson(Object value, Writer writer) throws IOException {
+        try {
+            gson.toJson(value, writer);
+        } catch (JsonIOException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public <T> T fromJson(String json, Type type) {
+        if (json == null) {
+            return null;
+        }
+        return this.<T> fromJson(new StringReader(json), type);
+    }
+
+    public <T> T fromJson(Reader json, Type type) {
+        JsonReader reader = new JsonReader(json);
+        T value = read(reader, type);
+
+        try {
+            if (value != null && reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonIOException("JSON document was not fully consumed.");
+            }
+        } catch (MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> TypeAdapter<T> getAdapter(Type type) {
+        TypeAdapter<?> adapter = adapters.get(type);
+        if (adapter == null) {
+            adapter = gson.getAdapter(TypeToken.get(type));
+            adapters.putIfAbsent(type, adapter);
+        }
+        return (TypeAdapter<T>) adapter;
+    }
+
+    private <T> T read(JsonReader reader, Type type) {
+        boolean empty = true;
+        reader.setLenient(true);
+        try {
+            reader.peek();
+            empty = false;
+            return this.<T> getAdapter(type).read(reader);
+        } catch (EOFException e) {
+            // like Gson, treat an empty document as null instead of failing
+            if (empty) {
+                return null;
+            }
+            throw new JsonSyntaxException(e);
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.transport;
+
+import java.io.IOException;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * Sends the requests of a {@link de.devbliss.apitester.TestState} and returns the responses.
+ * Implement this if you want to use another HTTP engine. Requests and responses are described with
+ * the HttpClient classes in any case, since that is what the factories create and what
+ * {@link de.devbliss.apitester.ApiTestUtil} converts.
+ *
+ * Implementations must be safe to use by several threads at the same time, because several states
+ * may share the same transport.
+ *
+ * @author hschuetz
+ *
+ */
+public interface Transport {
+
+    /**
+     * Sends the request and returns the response. Cookies to send are taken from the given store,
+     * and cookies set by the response are put into it.
+     *
+     * @param request
+     * @param cookieStore cookies of the calling state
+     * @return response, with an entity the caller consumes
+     * @throws IOException
+     */
+    HttpResponse execute(HttpUriRequest request, CookieStore cookieStore) throws IOException;
+
+    /**
+     * Shutdown, closing any active connections.
+     */
+    void shutdown();
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.transport.impl;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.protocol.RequestAddCookies;
+import org.apache.http.client.protocol.ResponseProcessCookies;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.config.Lookup;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.cookie.CookieSpecProvider;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.impl.client.CookieSpecRegistries;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.protocol.HttpProcessor;
+import org.apache.http.protocol.ImmutableHttpProcessor;
+import org.apache.http.protocol.RequestContent;
+import org.apache.http.protocol.RequestTargetHost;
+
+/**
+ * Applies the parts of the HTTP client protocol that HttpClient would apply, i.e. the entity
+ * headers and cookies, for transports that send requests some other way.
+ *
+ * @author hschuetz
+ *
+ */
+class ClientProtocol {
+
+    // set by the HTTP engine itself, depending on the protocol version it speaks
+    private static final Set<String> CONNECTION_HEADERS = new HashSet<String>(Arrays.asList(
+            "connection", "content-length", "expect", "host", "keep-alive", "proxy-connection",
+            "te", "transfer-encoding", "upgrade"));
+
+    private static final Lookup<CookieSpecProvider> COOKIE_SPECS =
+            CookieSpecRegistries.createDefault();
+
+    private static final HttpProcessor PROCESSOR = new ImmutableHttpProcessor(
+            new HttpRequestInterceptor[] {new RequestContent(), new RequestTargetHost(),
+                    new RequestAddCookies()},
+            new HttpResponseInterceptor[] {new ResponseProcessCookies()});
+
+    private final HttpClientContext context;
+    private final HttpRequestWrapper request;
+
+    /**
+     * Prepares the given request for sending, leaving the original request untouched.
+     *
+     * @param original
+     * @param cookieStore
+     * @throws IOException
+     */
+    ClientProtocol(HttpUriRequest original, CookieStore cookieStore) throws IOException {
+        HttpHost target = URIUtils.extractHost(original.getURI());
+
+        if (target == null) {
+            throw new ClientProtocolException("URI does not specify a valid host name: "
+                    + original.getURI());
+        }
+
+        boolean secure = "https".equalsIgnoreCase(target.getSchemeName());
+
+        if (target.getPort() < 0) {
+            target = new HttpHost(target.getHostName(), secure ? 443 : 80,
+                    target.getSchemeName());
+        }
+
+        context = HttpClientContext.create();
+        context.setCookieStore(cookieStore);
+        context.setCookieSpecRegistry(COOKIE_SPECS);
+        context.setAttribute(HttpCoreContext.HTTP_TARGET_HOST, target);
+        context.setAttribute(HttpClientContext.HTTP_ROUTE, new HttpRoute(target, null, secure));
+
+        request = HttpRequestWrapper.wrap(original);
+        context.setAttribute(HttpCoreContext.HTTP_REQUEST, request);
+
+        try {
+            PROCESSOR.process(request, context);
+        } catch (HttpException e) {
+            throw new ClientProtocolException(e);
+        }
+    }
+
+    /**
+     * @return the request to send, including entity, host and cookie headers
+     */
+    HttpRequestWrapper getRequest() {
+        return request;
+    }
+
+    HttpClientContext getContext() {
+        return context;
+    }
+
+    /**
+     * Stores the cookies set by the given response.
+     *
+     * @param response
+     * @throws IOException
+     */
+    void processResponse(HttpResponse response) throws IOException {
+        context.setAttribute(HttpCoreContext.HTTP_RESPONSE, response);
+
+        try {
+            PROCESSOR.process(response, context);
+        } catch (HttpException e) {
+            throw new ClientProtocolException(e);
+        }
+    }
+
+    /**
+     * Tells whether the given header describes the connection rather than the request, so an
+     * engine that is not HttpClient must set it itself.
+     *
+     * @param name
+     * @return
+     */
+    static boolean isConnectionHeader(String name) {
+        return CONNECTION_HEADERS.contains(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Creates an HttpClient response for a response received by another engine. Headers are
+     * added by the caller, the body by {@link #setBody(HttpResponse, byte[])}.
+     *
+     * @param version
+     * @param status
+     * @return
+     */
+    static HttpResponse createResponse(ProtocolVersion version, int status) {
+        return new BasicHttpResponse(new BasicStatusLine(version, status,
+                EnglishReasonPhraseCatalog.INSTANCE.getReason(status, Locale.ENGLISH)));
+    }
+
+    /**
+     * Sets the given body as entity of the response, described by its content headers.
+     *
+     * @param response
+     * @param body
+     */
+    static void setBody(HttpResponse response, byte[] body) {
+        ByteArrayEntity entity = new ByteArrayEntity(body != null ? body : new byte[0]);
+        entity.setContentType(response.getFirstHeader(HttpHeaders.CONTENT_TYPE));
+        entity.setContentEncoding(response.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+        response.setEntity(entity);
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.transport.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.async.methods.SimpleResponseConsumer;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.reactor.IOSessionListener;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.util.EntityUtils;
+
+import de.devbliss.apitester.transport.Transport;
+
+/**
+ * Sends all requests over HTTP/2, using the client of HttpClient 5. Requests to <i>https</i> URIs
+ * use h2, negotiated via ALPN, which needs Java 9 or Java 8u252 and newer. Requests to <i>http</i>
+ * URIs use h2c with prior knowledge, i.e. the server must accept HTTP/2 without an upgrade from
+ * HTTP/1.1.
+ *
+ * Each request is a stream of its own, and all streams to the same server are multiplexed over a
+ * single connection, so a state shared by many threads, e.g. by the sessions of a
+ * {@link de.devbliss.apitester.SessionRunner}, no longer opens one socket per concurrent request.
+ * How well that works can be checked with {@link #getStats()}. Redirects are returned as they are
+ * rather than followed.
+ *
+ * HttpClient 5 is an optional dependency of ApiTester, so to use this transport add
+ * <i>org.apache.httpcomponents.client5:httpclient5</i> to your own project.
+ *
+ * @author hschuetz
+ *
+ */
+public class Http2Transport implements Transport {
+
+    private final StreamStats stats = new StreamStats();
+    private final CloseableHttpAsyncClient client;
+
+    /**
+     * Creates a transport with one I/O thread per CPU.
+     */
+    public Http2Transport() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param ioThreads number of threads doing the network I/O of all streams
+     */
+    public Http2Transport(int ioThreads) {
+        client = H2AsyncClientBuilder.create()
+                .setIOReactorConfig(IOReactorConfig.custom().setIoThreadCount(ioThreads).build())
+                .setIOSessionListener(new IOSessionListener() {
+                    public void connected(IOSession session) {
+                        stats.connectionOpened();
+                    }
+
+                    public void startTls(IOSession session) {
+                    }
+
+                    public void inputReady(IOSession session) {
+                    }
+
+                    public void outputReady(IOSession session) {
+                    }
+
+                    public void timeout(IOSession session) {
+                    }
+
+                    public void exception(IOSession session, Exception e) {
+                    }
+
+                    public void disconnected(IOSession session) {
+                    }
+                })
+                // cookies are handled like for all other transports, see ClientProtocol
+                .disableCookieManagement()
+                .disableRedirectHandling()
+                .build();
+        client.start();
+    }
+
+    /**
+     * @return the streams and connections of this transport so far
+     */
+    public StreamStats getStats() {
+        return stats;
+    }
+
+    public HttpResponse execute(HttpUriRequest request, CookieStore cookieStore)
+            throws IOException {
+        ClientProtocol protocol = new ClientProtocol(request, cookieStore);
+        SimpleHttpResponse h2Response = send(toH2Request(protocol.getRequest()));
+
+        org.apache.hc.core5.http.ProtocolVersion h2Version = h2Response.getVersion();
+        HttpResponse response = ClientProtocol.createResponse(h2Version != null
+                ? new ProtocolVersion(h2Version.getProtocol(), h2Version.getMajor(),
+                        h2Version.getMinor()) : new ProtocolVersion("HTTP", 2, 0),
+                h2Response.getCode());
+
+        for (org.apache.hc.core5.http.Header header : h2Response.getHeaders()) {
+            response.addHeader(header.getName(), header.getValue());
+        }
+
+        ClientProtocol.setBody(response, h2Response.getBodyBytes());
+        protocol.processResponse(response);
+        return response;
+    }
+
+    public void shutdown() {
+        client.close(CloseMode.GRACEFUL);
+    }
+
+    private SimpleHttpResponse send(SimpleHttpRequest request) throws IOException {
+        stats.streamOpened();
+        boolean failed = true;
+
+        try {
+            Future<SimpleHttpResponse> future = client.execute(
+                    SimpleRequestProducer.create(request), SimpleResponseConsumer.create(), null);
+            SimpleHttpResponse response = future.get();
+            failed = false;
+            return response;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Request to " + request.getRequestUri() + " failed",
+                    e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for "
+                    + request.getRequestUri());
+        } finally {
+            stats.streamClosed(failed);
+        }
+    }
+
+    private static SimpleHttpRequest toH2Request(HttpRequestWrapper request) throws IOException {
+        SimpleHttpRequest h2Request = new SimpleHttpRequest(request.getMethod(), request.getURI());
+
+        for (Header header : request.getAllHeaders()) {
+            // HTTP/2 has no connection headers, and the content type goes with the body below
+            if (!ClientProtocol.isConnectionHeader(header.getName())
+                    && !HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(header.getName())) {
+                h2Request.addHeader(header.getName(), header.getValue());
+            }
+        }
+
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+
+            if (entity != null) {
+                h2Request.setBody(EntityUtils.toByteArray(entity), entity.getContentType() != null
+                        ? ContentType.parse(entity.getContentType().getValue()) : null);
+            }
+        }
+
+        return h2Request;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.transport.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+
+import de.devbliss.apitester.transport.Transport;
+
+/**
+ * Default implementation sending requests with an Apache {@link HttpClient}.
+ *
+ * @author hschuetz
+ *
+ */
+public class HttpClientTransport implements Transport {
+
+    private final HttpClient client;
+
+    public HttpClientTransport(HttpClient client) {
+        this.client = client;
+    }
+
+    public HttpClient getClient() {
+        return client;
+    }
+
+    public HttpResponse execute(HttpUriRequest request, CookieStore cookieStore)
+            throws IOException {
+        HttpClientContext context = HttpClientContext.create();
+        context.setCookieStore(cookieStore);
+        return client.execute(request, context);
+    }
+
+    public void shutdown() {
+        if (client instanceof Closeable) {
+            try {
+                ((Closeable) client).close();
+            } catch (IOException e) {
+                // nothing left to do with the connections
+            }
+        } else {
+            shutdownConnectionManager();
+        }
+    }
+
+    // the only way to release a client that is not closeable
+    @SuppressWarnings("deprecation")
+    private void shutdownConnectionManager() {
+        client.getConnectionManager().shutdown();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.transport.impl;
+
+import java.io.IOException;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.protocol.HttpRequestHandler;
+import org.apache.http.protocol.UriPatternMatcher;
+
+import de.devbliss.apitester.transport.Transport;
+
+/**
+ * Passes requests directly to an {@link HttpRequestHandler} in the same JVM, without any network
+ * I/O. Useful to measure the overhead of the test code itself, or to run a test suite against the
+ * handlers of the application under test without starting a server. Cookies are handled the same
+ * way as by a real HTTP client.
+ *
+ * Handlers are registered for path patterns as described by {@link UriPatternMatcher},
+ * e.g. <code>/users/*</code>. Requests no handler is registered for get a 404 response. A handler
+ * gets a response with status 200 and fills in whatever it wants. It is called by all threads
+ * sending requests with this transport, so it must be thread safe if the transport is shared.
+ * Servlet based handlers have to be adapted to {@link HttpRequestHandler}.
+ *
+ * @author hschuetz
+ *
+ */
+public class InMemoryTransport implements Transport {
+
+    private final UriPatternMatcher<HttpRequestHandler> handlers =
+            new UriPatternMatcher<HttpRequestHandler>();
+
+    /**
+     * Creates a transport without any handlers, see {@link #register(String, HttpRequestHandler)}.
+     */
+    public InMemoryTransport() {
+    }
+
+    /**
+     * Creates a transport passing all requests to the given handler.
+     *
+     * @param handler
+     */
+    public InMemoryTransport(HttpRequestHandler handler) {
+        register("*", handler);
+    }
+
+    /**
+     * Registers a handler for all request paths matching the given pattern, replacing any handler
+     * registered for the same pattern before.
+     *
+     * @param pattern e.g. <code>/users/*</code>
+     * @param handler
+     * @return this transport
+     */
+    public InMemoryTransport register(String pattern, HttpRequestHandler handler) {
+        handlers.register(pattern, handler);
+        return this;
+    }
+
+    public HttpResponse execute(HttpUriRequest request, CookieStore cookieStore)
+            throws IOException {
+        ClientProtocol protocol = new ClientProtocol(request, cookieStore);
+        HttpRequestHandler handler = handlers.lookup(request.getURI().getRawPath());
+
+        if (handler == null) {
+            HttpResponse response = ClientProtocol.createResponse(HttpVersion.HTTP_1_1,
+                    HttpStatus.SC_NOT_FOUND);
+            ClientProtocol.setBody(response, null);
+            return response;
+        }
+
+        HttpResponse response = ClientProtocol.createResponse(HttpVersion.HTTP_1_1,
+                HttpStatus.SC_OK);
+
+        try {
+            handler.handle(protocol.getRequest(), response, protocol.getContext());
+        } catch (HttpException e) {
+            throw new ClientProtocolException(e);
+        }
+
+        protocol.processResponse(response);
+        return response;
+    }
+
+    public void shutdown() {
+        // nothing to close
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.transport.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.util.EntityUtils;
+
+import de.devbliss.apitester.transport.Transport;
+
+/**
+ * Sends requests with the <code>java.net.http.HttpClient</code> of the JDK, which speaks HTTP/2
+ * where the server supports it and falls back to HTTP/1.1 otherwise. That client only exists on
+ * Java 11 or newer, while this library still runs on older versions, so it is used via reflection.
+ * Check {@link #isSupported()} before creating an instance.
+ *
+ * @author hschuetz
+ *
+ */
+public class JdkHttpClientTransport implements Transport {
+
+    private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+
+    private final Object client;
+
+    /**
+     * Creates a transport with a new client in its default configuration.
+     *
+     * @throws UnsupportedOperationException if running on Java 10 or older
+     */
+    public JdkHttpClientTransport() {
+        this(newHttpClient());
+    }
+
+    /**
+     * Creates a transport using the given client.
+     *
+     * @param client instance of <code>java.net.http.HttpClient</code>, e.g. to use a specific HTTP
+     *        version or executor
+     */
+    public JdkHttpClientTransport(Object client) {
+        if (!isSupported() || !Api.httpClient.isInstance(client)) {
+            throw new IllegalArgumentException("Not a java.net.http.HttpClient: " + client);
+        }
+        this.client = client;
+    }
+
+    /**
+     * Tells whether the running JVM provides <code>java.net.http.HttpClient</code>.
+     *
+     * @return
+     */
+    public static boolean isSupported() {
+        return Api.httpClient != null;
+    }
+
+    public HttpResponse execute(HttpUriRequest request, CookieStore cookieStore)
+            throws IOException {
+        ClientProtocol protocol = new ClientProtocol(request, cookieStore);
+        HttpResponse response = toHttpResponse(send(protocol.getRequest()));
+        protocol.processResponse(response);
+        return response;
+    }
+
+    public void shutdown() {
+        // only Java 21 and newer can close a client, older ones release it on garbage collection
+        if (Api.shutdownNow != null) {
+            invoke(Api.shutdownNow, client);
+        }
+    }
+
+    private Object send(HttpRequestWrapper request) throws IOException {
+        Object body = Api.noBody;
+
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+
+            if (entity != null) {
+                body = invoke(Api.ofByteArray, null, (Object) EntityUtils.toByteArray(entity));
+            }
+        }
+
+        Object builder = invoke(Api.newRequestBuilder, null, request.getURI());
+        invoke(Api.method, builder, request.getMethod(), body);
+
+        for (Header header : request.getAllHeaders()) {
+            // the JDK client sets these itself and refuses to accept them from us
+            if (!ClientProtocol.isConnectionHeader(header.getName())) {
+                invoke(Api.header, builder, header.getName(), header.getValue());
+            }
+        }
+
+        try {
+            return Api.send.invoke(client, invoke(Api.build, builder), Api.ofByteArrayHandler);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for "
+                        + request.getURI());
+            }
+            throw unchecked(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpResponse toHttpResponse(Object jdkResponse) {
+        int status = (Integer) invoke(Api.statusCode, jdkResponse);
+        ProtocolVersion version = "HTTP_2".equals(invoke(Api.version, jdkResponse).toString())
+                ? HTTP_2 : HttpVersion.HTTP_1_1;
+        HttpResponse response = ClientProtocol.createResponse(version, status);
+
+        Map<String, List<String>> headers = (Map<String, List<String>>) invoke(Api.headerMap,
+                invoke(Api.headers, jdkResponse));
+
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            // pseudo headers of HTTP/2 are not headers to HTTP/1.1
+            if (!header.getKey().startsWith(":")) {
+                for (String value : header.getValue()) {
+                    response.addHeader(header.getKey(), value);
+                }
+            }
+        }
+
+        ClientProtocol.setBody(response, (byte[]) invoke(Api.body, jdkResponse));
+        return response;
+    }
+
+    private static Object newHttpClient() {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("java.net.http.HttpClient needs Java 11");
+        }
+        return invoke(Api.newHttpClient, null);
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw unchecked(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static RuntimeException unchecked(InvocationTargetException e) {
+        if (e.getCause() instanceof RuntimeException) {
+            return (RuntimeException) e.getCause();
+        }
+        return new IllegalStateException(e.getCause());
+    }
+
+    /**
+     * The parts of <code>java.net.http</code> used above, all null if it is not available.
+     */
+    private static class Api {
+
+        static Class<?> httpClient;
+        static Method newHttpClient;
+        static Method send;
+        static Method shutdownNow;
+        static Method newRequestBuilder;
+        static Method method;
+        static Method header;
+        static Method build;
+        static Object noBody;
+        static Method ofByteArray;
+        static Object ofByteArrayHandler;
+        static Method statusCode;
+        static Method version;
+        static Method headers;
+        static Method headerMap;
+        static Method body;
+
+        static {
+            try {
+                Class<?> client = Class.forName("java.net.http.HttpClient");
+                Class<?> request = Class.forName("java.net.http.HttpRequest");
+                Class<?> requestBuilder = Class.forName("java.net.http.HttpRequest$Builder");
+                Class<?> bodyPublisher =
+                        Class.forName("java.net.http.HttpRequest$BodyPublisher");
+                Class<?> bodyPublishers =
+                        Class.forName("java.net.http.HttpRequest$BodyPublishers");
+                Class<?> response = Class.forName("java.net.http.HttpResponse");
+                Class<?> bodyHandler = Class.forName("java.net.http.HttpResponse$BodyHandler");
+                Class<?> bodyHandlers =
+                        Class.forName("java.net.http.HttpResponse$BodyHandlers");
+
+                newHttpClient = client.getMethod("newHttpClient");
+                send = client.getMethod("send", request, bodyHandler);
+                newRequestBuilder = request.getMethod("newBuilder", URI.class);
+                method = requestBuilder.getMethod("method", String.class, bodyPublisher);
+                header = requestBuilder.getMethod("header", String.class, String.class);
+                build = requestBuilder.getMethod("build");
+                noBody = bodyPublishers.getMethod("noBody").invoke(null);
+                ofByteArray = bodyPublishers.getMethod("ofByteArray", byte[].class);
+                ofByteArrayHandler = bodyHandlers.getMethod("ofByteArray").invoke(null);
+                statusCode = response.getMethod("statusCode");
+                version = response.getMethod("version");
+                headers = response.getMethod("headers");
+                headerMap = Class.forName("java.net.http.HttpHeaders").getMethod("map");
+                body = response.getMethod("body");
+
+                try {
+                    shutdownNow = client.getMethod("shutdownNow");
+                } catch (NoSuchMethodException e) {
+                    shutdownNow = null;
+                }
+
+                httpClient = client;
+            } catch (Exception e) {
+                // older JDK, httpClient stays null
+            }
+        }
+    }
+}
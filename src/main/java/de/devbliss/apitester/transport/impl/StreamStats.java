@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.transport.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the streams and connections of an {@link Http2Transport}. Every request is sent as a
+ * stream of its own, and many streams share one connection at the same time, so far fewer
+ * connections than streams should be opened even under high concurrency.
+ *
+ * @author hschuetz
+ *
+ */
+public class StreamStats {
+
+    private final AtomicLong streams = new AtomicLong();
+    private final AtomicLong failedStreams = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    private final AtomicInteger peakActiveStreams = new AtomicInteger();
+
+    void streamOpened() {
+        streams.incrementAndGet();
+        int active = activeStreams.incrementAndGet();
+        int peak = peakActiveStreams.get();
+        while (active > peak && !peakActiveStreams.compareAndSet(peak, active)) {
+            peak = peakActiveStreams.get();
+        }
+    }
+
+    void streamClosed(boolean failed) {
+        activeStreams.decrementAndGet();
+        if (failed) {
+            failedStreams.incrementAndGet();
+        }
+    }
+
+    void connectionOpened() {
+        connectionsOpened.incrementAndGet();
+    }
+
+    /**
+     * @return number of streams, i.e. requests, opened so far
+     */
+    public long getStreams() {
+        return streams.get();
+    }
+
+    /**
+     * @return number of streams that ended without a response
+     */
+    public long getFailedStreams() {
+        return failedStreams.get();
+    }
+
+    /**
+     * @return number of connections opened so far
+     */
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    /**
+     * @return number of streams waiting for their response right now
+     */
+    public int getActiveStreams() {
+        return activeStreams.get();
+    }
+
+    /**
+     * @return highest number of streams that were waiting for their response at the same time
+     */
+    public int getPeakActiveStreams() {
+        return peakActiveStreams.get();
+    }
+
+    /**
+     * @return average number of streams sent over each connection
+     */
+    public double getStreamsPerConnection() {
+        long connections = getConnectionsOpened();
+        return connections == 0 ? 0 : (double) getStreams() / connections;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamStats{" +
+                "streams=" + getStreams() +
+                ", failedStreams=" + getFailedStreams() +
+                ", connectionsOpened=" + getConnectionsOpened() +
+                ", peakActiveStreams=" + getPeakActiveStreams() +
+                '}';
+    }
+}
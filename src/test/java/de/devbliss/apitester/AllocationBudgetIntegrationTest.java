@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.net.URI;
+
+import org.apache.http.HttpStatus;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.devbliss.apitester.AllocationBudget.Call;
+import de.devbliss.apitester.dummyserver.DummyApiServer;
+import de.devbliss.apitester.dummyserver.DummyDto;
+
+/**
+ * Pins the bytes the client allocates per request for each verb, sending requests with a pooled
+ * client to an embedded local instance of {@link DummyApiServer}. The server allocates on its own
+ * threads, so it is not counted. The budgets are about one and a half times what was measured
+ * when they were set; raise them only for a good reason.
+ *
+ * @author hschuetz
+ *
+ */
+public class AllocationBudgetIntegrationTest {
+
+    // measured: about 12.8 kB for GET, 14.8 kB for POST, PUT and PATCH, 11.6 kB for DELETE
+    private static final long GET_BUDGET = 20 * 1024;
+    private static final long POST_BUDGET = 23 * 1024;
+    private static final long PUT_BUDGET = 23 * 1024;
+    private static final long PATCH_BUDGET = 23 * 1024;
+    private static final long DELETE_BUDGET = 18 * 1024;
+
+    private DummyApiServer server;
+    private TestState testState;
+    private DummyDto payload;
+    private byte[] allocated;
+
+    @Before
+    public void setUp() throws Exception {
+        Assume.assumeTrue(AllocationBudget.isSupported());
+        server = new DummyApiServer();
+        server.start(false);
+        testState = ApiTesterModule.createPooledTestState();
+        payload = DummyDto.createSampleInstance();
+    }
+
+    @After
+    public void shutDown() throws Exception {
+        if (testState != null) {
+            testState.shutdown();
+        }
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testMeasuresAllocation() throws Exception {
+        long bytesPerCall = AllocationBudget.measureBytesPerCall(new Call() {
+            public void run() {
+                allocated = new byte[1024];
+            }
+        });
+        assertTrue(String.valueOf(bytesPerCall), bytesPerCall >= 1024);
+    }
+
+    @Test
+    public void testFailsOverBudget() throws Exception {
+        try {
+            AllocationBudget.assertWithin(512, new Call() {
+                public void run() {
+                    allocated = new byte[1024];
+                }
+            });
+        } catch (AssertionError e) {
+            return;
+        }
+        fail("Budget exceeded, but not reported");
+    }
+
+    @Test
+    public void testGetBudget() throws Exception {
+        final URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+        AllocationBudget.assertWithin(GET_BUDGET, new Call() {
+            public void run() throws Exception {
+                Getter.get(uri, testState);
+            }
+        });
+    }
+
+    @Test
+    public void testPostBudget() throws Exception {
+        final URI uri = server.buildPostRequestUri(HttpStatus.SC_OK);
+        AllocationBudget.assertWithin(POST_BUDGET, new Call() {
+            public void run() throws Exception {
+                Poster.post(uri, payload, testState);
+            }
+        });
+    }
+
+    @Test
+    public void testPutBudget() throws Exception {
+        final URI uri = server.buildPostRequestUri(HttpStatus.SC_OK);
+        AllocationBudget.assertWithin(PUT_BUDGET, new Call() {
+            public void run() throws Exception {
+                Putter.put(uri, payload, testState);
+            }
+        });
+    }
+
+    @Test
+    public void testPatchBudget() throws Exception {
+        final URI uri = server.buildPostRequestUri(HttpStatus.SC_OK);
+        AllocationBudget.assertWithin(PATCH_BUDGET, new Call() {
+            public void run() throws Exception {
+                Patcher.patch(uri, payload, testState);
+            }
+        });
+    }
+
+    @Test
+    public void testDeleteBudget() throws Exception {
+        final URI uri = server.buildPostRequestUri(HttpStatus.SC_OK);
+        AllocationBudget.assertWithin(DELETE_BUDGET, new Call() {
+            public void run() throws Exception {
+                Deleter.delete(uri, testState);
+            }
+        });
+    }
+}
@@ -37,6 +37,7 @@ import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.cookie.Cookie;
 import org.apache.http.message.BasicHeader;
+import org.apache.http.protocol.HttpContext;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -105,7 +106,8 @@ public class ApiTestUnitTest {
         headers = new Header[1];
         headers[0] = new BasicHeader("name", "value");
         when(response.getStatusLine()).thenReturn(statusLine);
-        when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(response);
+        when(httpClient.execute(any(HttpUriRequest.class), any(HttpContext.class))).thenReturn(
+                response);
         testState = new TestState(httpClient, cookieStore);
 
         when(httpGet.getRequestLine()).thenReturn(requestLine);
@@ -14,29 +14,50 @@
 
 package de.devbliss.apitester;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import org.HdrHistogram.Histogram;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.RequestLine;
 import org.apache.http.StatusLine;
+import org.apache.http.client.CookieStore;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.message.BasicHeader;
+import org.codehaus.jackson.type.TypeReference;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import com.google.gson.Gson;
+
+import de.devbliss.apitester.dummyserver.DummyDto;
+
 /**
  * 
  * Test for @ApiTestUtil
@@ -57,6 +78,7 @@ public class ApiTestUtilUnitTest {
     private static final String COOKIE_NAME_2 = "cookie_value_1";
     private static final String COOKIE_VALUE_2 = "cookie_value_2";
     private static final String HTTP_METHOD = "http_method";
+    private static final String UMLAUTS = "\u00e4\u00f6\u00fc";
 
     @Mock
     private StatusLine statusLine;
@@ -95,6 +117,11 @@ public class ApiTestUtilUnitTest {
         when(httpResponse.getEntity()).thenReturn(null);
     }
 
+    @After
+    public void tearDown() {
+        ApiTestUtil.setPayloadSpillThreshold(ApiTestUtil.DEFAULT_PAYLOAD_SPILL_THRESHOLD);
+    }
+
     @Test
     public void testConvertToApiRequest() {
         ApiRequest apiRequest = ApiTestUtil.convertToApiRequest(uri, httpRequest, requestCookies);
@@ -106,13 +133,214 @@ public class ApiTestUtilUnitTest {
         assertEquals(HTTP_METHOD, apiRequest.httpMethod);
     }
 
+    @Test
+    public void testConvertToApiRequestFromCookieStoreKeepsCookiesSent() {
+        CookieStore cookieStore = new CopyOnWriteCookieStore();
+        for (Cookie cookie : requestCookies) {
+            cookieStore.addCookie(cookie.toApacheCookie());
+        }
+
+        ApiRequest apiRequest = ApiTestUtil.convertToApiRequest(uri, httpRequest, cookieStore);
+        // as if the response set and removed cookies
+        cookieStore.clear();
+        cookieStore.addCookie(new Cookie("other", "value").toApacheCookie());
+
+        assertEquals(HEADER_VALUE_1, apiRequest.getHeader(HEADER_NAME_1));
+        assertEquals(COOKIE_VALUE_1, apiRequest.getCookie(COOKIE_NAME_1));
+        assertEquals(COOKIE_VALUE_2, apiRequest.getCookie(COOKIE_NAME_2));
+        assertNull(apiRequest.getCookie("other"));
+        assertEquals(2, apiRequest.cookies.size());
+        assertEquals(HTTP_METHOD, apiRequest.httpMethod);
+    }
+
     @Test
     public void testConvertToApiResponse() throws IOException {
         ApiResponse apiResponse = ApiTestUtil.convertToApiResponse(httpResponse);
-        assertTrue(apiResponse.payload.isEmpty());
+        assertTrue(apiResponse.getPayload().isEmpty());
         assertEquals(STATUS_CODE, apiResponse.httpStatus);
         assertEquals(HEADER_VALUE_1, apiResponse.getHeader(HEADER_NAME_1));
         assertEquals(HEADER_VALUE_2, apiResponse.getHeader(HEADER_NAME_2));
         assertFalse(apiResponse.headers.containsKey(HEADER_NAME_1));
     }
+
+    @Test
+    public void testConvertToApiResponseDecodesWithCharsetOfContentType() throws IOException {
+        when(httpResponse.getEntity()).thenReturn(new ByteArrayEntity(
+                UMLAUTS.getBytes("ISO-8859-1"), ContentType.create("text/plain", "ISO-8859-1")));
+        ApiResponse apiResponse = ApiTestUtil.convertToApiResponse(httpResponse);
+        assertEquals(Charset.forName("ISO-8859-1"), apiResponse.charset);
+        assertEquals(UMLAUTS.length(), apiResponse.getPayloadBytes().length);
+        assertEquals(UMLAUTS, apiResponse.getPayload());
+        assertSame(apiResponse.getPayload(), apiResponse.getPayload());
+    }
+
+    @Test
+    public void testConvertToApiResponseDecodesUtf8ByDefault() throws IOException {
+        DummyDto dto = new DummyDto(UMLAUTS, 1, true);
+        when(httpResponse.getEntity()).thenReturn(new ByteArrayEntity(
+                new Gson().toJson(dto).getBytes("UTF-8")));
+        ApiResponse apiResponse = ApiTestUtil.convertToApiResponse(httpResponse);
+        assertEquals(dto, apiResponse.payloadJsonAs(DummyDto.class));
+        assertEquals(UMLAUTS, apiResponse.payloadJsonAs(DummyDto.class).getSomeStringValue());
+        assertTrue(apiResponse.getPayload().contains(UMLAUTS));
+    }
+
+    @Test
+    public void testConvertToApiResponseWritesLargePayloadToFile() throws IOException {
+        List<DummyDto> dtos = createDtos(100);
+        byte[] json = new Gson().toJson(dtos).getBytes("UTF-8");
+        ApiTestUtil.setPayloadSpillThreshold(json.length - 1);
+        when(httpResponse.getEntity()).thenReturn(new ByteArrayEntity(json));
+
+        ApiResponse apiResponse = ApiTestUtil.convertToApiResponse(httpResponse);
+        assertSpilled(apiResponse, json, dtos);
+    }
+
+    @Test
+    public void testConvertToApiResponseWritesLargeChunkedPayloadToFile() throws IOException {
+        List<DummyDto> dtos = createDtos(100);
+        byte[] json = new Gson().toJson(dtos).getBytes("UTF-8");
+        ApiTestUtil.setPayloadSpillThreshold(json.length / 3);
+        when(httpResponse.getEntity()).thenReturn(
+                new InputStreamEntity(new ByteArrayInputStream(json), -1));
+
+        ApiResponse apiResponse = ApiTestUtil.convertToApiResponse(httpResponse);
+        assertSpilled(apiResponse, json, dtos);
+    }
+
+    @Test
+    public void testReleaseDeletesPayloadFile() throws IOException {
+        byte[] json = new Gson().toJson(createDtos(100)).getBytes("UTF-8");
+        ApiTestUtil.setPayloadSpillThreshold(json.length - 1);
+        when(httpResponse.getEntity()).thenReturn(new ByteArrayEntity(json));
+
+        ApiResponse apiResponse = ApiTestUtil.convertToApiResponse(httpResponse);
+        File payloadFile = apiResponse.getPayloadFile();
+        assertTrue(payloadFile.exists());
+        apiResponse.release();
+        assertFalse(payloadFile.exists());
+        try {
+            apiResponse.getPayloadBytes();
+            fail("released payload read");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testReleaseKeepsFileOfCaller() throws IOException {
+        File payloadFile = File.createTempFile("apitester-test-", ".json");
+        try {
+            new ApiResponse(STATUS_CODE, "OK", payloadFile, null, new HashMap<String, String>())
+                    .release();
+            assertTrue(payloadFile.exists());
+        } finally {
+            payloadFile.delete();
+        }
+    }
+
+    @Test
+    public void testConvertToApiResponseKeepsChunkedPayloadBelowThresholdInMemory()
+            throws IOException {
+        byte[] json = new Gson().toJson(createDtos(100)).getBytes("UTF-8");
+        when(httpResponse.getEntity()).thenReturn(
+                new InputStreamEntity(new ByteArrayInputStream(json), -1));
+
+        ApiResponse apiResponse = ApiTestUtil.convertToApiResponse(httpResponse);
+        assertNull(apiResponse.getPayloadFile());
+        assertArrayEquals(json, apiResponse.getPayloadBytes());
+    }
+
+    @Test
+    public void testApiResponseWithoutPayloadIsEmpty() {
+        ApiResponse apiResponse = new ApiResponse(204, "No Content", (String) null,
+                new HashMap<String, String>());
+        assertEquals("", apiResponse.getPayload());
+        assertEquals(0, apiResponse.getPayloadBytes().length);
+        assertEquals(0, apiResponse.bytesReceived);
+        assertFalse(apiResponse.isPayloadDiscarded());
+    }
+
+    @Test
+    public void testAssertLatencyBelow() {
+        ApiRequest apiRequest = ApiTestUtil.convertToApiRequest(uri, httpRequest, requestCookies);
+        Context context = new Context(null, apiRequest, TimeUnit.MILLISECONDS.toNanos(30));
+        ApiTestUtil.assertLatencyBelow(context, 50);
+
+        try {
+            ApiTestUtil.assertLatencyBelow(context, 20, TimeUnit.MILLISECONDS);
+        } catch (AssertionError e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("took 30.000 ms"));
+            assertTrue(e.getMessage(), e.getMessage().contains("PhaseTimings"));
+            return;
+        }
+        fail("latency not asserted");
+    }
+
+    @Test
+    public void testAssertPercentileShowsDistribution() throws Exception {
+        EndpointStats stats = new LatencyStats().getEndpoint("GET", uri);
+        for (int i = 1; i <= 100; i++) {
+            stats.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        ApiTestUtil.assertPercentile(stats, 50, 51, TimeUnit.MILLISECONDS);
+
+        try {
+            ApiTestUtil.assertPercentile(stats, 99, 90, TimeUnit.MILLISECONDS);
+        } catch (AssertionError e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("p99.0 was 99."));
+            assertTrue(e.getMessage(), e.getMessage().contains("Percentile"));
+            assertTrue(e.getMessage(), e.getMessage().contains("#[Max     =       100.1"));
+            return;
+        }
+        fail("percentile not asserted");
+    }
+
+    @Test
+    public void testAssertLoadSummary() {
+        Histogram latency = new Histogram(3);
+        latency.recordValue(TimeUnit.MILLISECONDS.toNanos(10));
+        List<Throwable> failures = new ArrayList<Throwable>();
+        failures.add(new IllegalStateException("boom"));
+        LoadSummary summary =
+                new LoadSummary(100, 1, TimeUnit.SECONDS.toNanos(2), latency, failures);
+
+        ApiTestUtil.assertThroughputAtLeast(summary, 50);
+        ApiTestUtil.assertErrorRateAtMost(summary, 0.01);
+        ApiTestUtil.assertPercentile(summary, 99.9, 11, TimeUnit.MILLISECONDS);
+
+        try {
+            ApiTestUtil.assertErrorRateAtMost(summary, 0);
+        } catch (AssertionError e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("boom"));
+            try {
+                ApiTestUtil.assertThroughputAtLeast(summary, 51);
+            } catch (AssertionError e2) {
+                assertTrue(e2.getMessage(), e2.getMessage().contains("50.0/s"));
+                return;
+            }
+        }
+        fail("load summary not asserted");
+    }
+
+    private void assertSpilled(ApiResponse apiResponse, byte[] json, List<DummyDto> dtos) {
+        File payloadFile = apiResponse.getPayloadFile();
+        assertNotNull(payloadFile);
+        try {
+            assertEquals(json.length, payloadFile.length());
+            assertEquals(json.length, apiResponse.bytesReceived);
+            assertEquals(dtos, apiResponse.payloadJsonAs(new TypeReference<List<DummyDto>>() {}));
+            assertArrayEquals(json, apiResponse.getPayloadBytes());
+        } finally {
+            apiResponse.release();
+        }
+    }
+
+    private List<DummyDto> createDtos(int count) {
+        List<DummyDto> dtos = new ArrayList<DummyDto>();
+        for (int i = 0; i < count; i++) {
+            dtos.add(new DummyDto(UMLAUTS + i, i, true));
+        }
+        return dtos;
+    }
 }
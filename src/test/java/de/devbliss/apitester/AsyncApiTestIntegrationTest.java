@@ -0,0 +1,157 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.http.HttpStatus;
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import de.devbliss.apitester.dummyserver.DummyApiServer;
+import de.devbliss.apitester.dummyserver.DummyDto;
+import de.devbliss.apitester.dummyserver.Handler;
+import de.devbliss.apitester.dummyserver.HandlerUtils;
+
+/**
+ * Tests {@link AsyncApiTest} against an embedded local instance of {@link DummyApiServer}.
+ *
+ * @author hschuetz
+ *
+ */
+public class AsyncApiTestIntegrationTest {
+
+    private static final int CONCURRENT_REQUESTS = 1000;
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private DummyApiServer server;
+    private AsyncApiTest apiTest;
+
+    private void start(boolean mocked) throws Exception {
+        server = new DummyApiServer();
+        server.start(mocked);
+        apiTest = new AsyncApiTest();
+    }
+
+    @After
+    public void shutDown() throws Exception {
+        apiTest.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void testGetOk() throws Exception {
+        start(false);
+        URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+        Context context = apiTest.get(uri).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        ApiTestUtil.assertOk(context.apiResponse);
+        assertEquals(DummyDto.createSampleInstance(),
+                context.apiResponse.payloadJsonAs(DummyDto.class));
+        assertEquals("GET", context.apiRequest.httpMethod);
+        assertEquals(uri, context.apiRequest.uri);
+    }
+
+    @Test
+    public void testLargeBodySpilledOffEventLoop() throws Exception {
+        start(false);
+        ApiTestUtil.setPayloadSpillThreshold(1024);
+        try {
+            URI uri = server.buildGetRequestUri(HttpStatus.SC_OK, 100);
+            final List<String> completingThreads = new ArrayList<String>();
+            final CountDownLatch completed = new CountDownLatch(1);
+            ListenableFuture<Context> future = apiTest.get(uri);
+            future.addListener(new Runnable() {
+                public void run() {
+                    completingThreads.add(Thread.currentThread().getName());
+                    completed.countDown();
+                }
+            }, MoreExecutors.sameThreadExecutor());
+
+            Context context = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            assertNotNull(context.apiResponse.getPayloadFile());
+            assertEquals(100, context.apiResponse.payloadJsonAs(DummyDto[].class).length);
+            context.apiResponse.release();
+            assertTrue(completed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertFalse(completingThreads.toString(),
+                    completingThreads.get(0).startsWith("I/O dispatcher"));
+        } finally {
+            ApiTestUtil.setPayloadSpillThreshold(ApiTestUtil.DEFAULT_PAYLOAD_SPILL_THRESHOLD);
+        }
+    }
+
+    @Test
+    public void testPostOkWithPayload() throws Exception {
+        start(false);
+        URI uri = server.buildPostRequestUri(HttpStatus.SC_OK);
+        DummyDto payload = DummyDto.createSampleInstance();
+        Context context = apiTest.post(uri, payload).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        ApiTestUtil.assertOk(context.apiResponse);
+        assertEquals(payload, context.apiResponse.payloadJsonAs(DummyDto.class));
+    }
+
+    @Test
+    public void testCookiesPersistedBetweenRequests() throws Exception {
+        start(true);
+        server.setHandler(new Handler() {
+            public void handle(HttpServletRequest request, HttpServletResponse response)
+                    throws Exception {
+                response.addCookie(new javax.servlet.http.Cookie("batman", "robin"));
+            }
+        });
+        Context first = apiTest.get(server.buildRequestUri("blah")).get(TIMEOUT_SECONDS,
+                TimeUnit.SECONDS);
+        assertNull(first.apiRequest.getCookie("batman"));
+
+        Context second = apiTest.get(server.buildRequestUri("blah")).get(TIMEOUT_SECONDS,
+                TimeUnit.SECONDS);
+        HandlerUtils.handleErrors(second.apiResponse);
+        assertEquals("robin", second.apiRequest.getCookie("batman"));
+    }
+
+    @Test
+    public void testManyConcurrentRequestsOnOneEventLoop() throws Exception {
+        start(false);
+        URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+        List<ListenableFuture<Context>> futures = new ArrayList<ListenableFuture<Context>>();
+
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            futures.add(apiTest.get(uri));
+        }
+
+        List<Context> contexts =
+                Futures.allAsList(futures).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertEquals(CONCURRENT_REQUESTS, contexts.size());
+        for (Context context : contexts) {
+            assertTrue(context.apiResponse.isStatusOk());
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.fail;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.devbliss.apitester.dummyserver.DummyApiServer;
+import de.devbliss.apitester.dummyserver.DummyDto;
+import de.devbliss.apitester.transport.impl.InMemoryTransport;
+
+/**
+ * Tests {@link ApiTest#executeAll(List, BatchConfig)} against an embedded local instance of
+ * {@link DummyApiServer} with a pooled client, and failures with an {@link InMemoryTransport}.
+ *
+ * @author hschuetz
+ *
+ */
+public class BatchIntegrationTest {
+
+    private static final int REQUESTS = 50;
+
+    private DummyApiServer server;
+    private ApiTest apiTest;
+    private URI failingUri;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new DummyApiServer();
+        server.start(false);
+        apiTest = new ApiTest();
+        apiTest.setTestState(ApiTesterModule.createPooledTestState());
+        failingUri = new URI("http://localhost/fail");
+    }
+
+    @After
+    public void shutDown() throws Exception {
+        apiTest.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void testContextsInInputOrder() throws Exception {
+        URI uri = server.buildPostRequestUri(HttpStatus.SC_OK);
+        List<RequestSpec> requests = new ArrayList<RequestSpec>();
+        for (int i = 0; i < REQUESTS; i++) {
+            requests.add(RequestSpec.post(uri, new DummyDto("dto " + i, i, true)));
+        }
+
+        List<Context> contexts = apiTest.executeAll(requests);
+
+        assertEquals(REQUESTS, contexts.size());
+        for (int i = 0; i < REQUESTS; i++) {
+            ApiTestUtil.assertOk(contexts.get(i).apiResponse);
+            assertEquals(i, contexts.get(i).apiResponse.payloadJsonAs(DummyDto.class)
+                    .getSomeIntValue());
+        }
+    }
+
+    @Test
+    public void testAllVerbsAndHeaders() throws Exception {
+        URI getUri = server.buildGetRequestUri(HttpStatus.SC_OK);
+        URI postUri = server.buildPostRequestUri(HttpStatus.SC_OK);
+        DummyDto payload = DummyDto.createSampleInstance();
+
+        List<Context> contexts = apiTest.executeAll(Arrays.asList(
+                RequestSpec.get(getUri).withHeader("X-Batch", "get"),
+                RequestSpec.post(postUri, payload),
+                RequestSpec.put(postUri, payload),
+                RequestSpec.patch(postUri, payload),
+                RequestSpec.delete(postUri)));
+
+        assertEquals("get", contexts.get(0).apiRequest.getHeader("X-Batch"));
+        assertEquals(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE"),
+                Arrays.asList(contexts.get(0).apiRequest.httpMethod,
+                        contexts.get(1).apiRequest.httpMethod,
+                        contexts.get(2).apiRequest.httpMethod,
+                        contexts.get(3).apiRequest.httpMethod,
+                        contexts.get(4).apiRequest.httpMethod));
+        for (Context context : contexts) {
+            ApiTestUtil.assertOk(context.apiResponse);
+        }
+    }
+
+    @Test
+    public void testDefaultStateSendsOneAfterAnother() throws Exception {
+        ApiTest plain = new ApiTest();
+        List<RequestSpec> requests = Collections.nCopies(REQUESTS,
+                RequestSpec.get(server.buildGetRequestUri(HttpStatus.SC_OK)));
+
+        try {
+            List<Context> contexts = plain.executeAll(requests);
+            assertEquals(REQUESTS, contexts.size());
+            for (Context context : contexts) {
+                ApiTestUtil.assertOk(context.apiResponse);
+            }
+        } finally {
+            plain.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testParallelismRejectedForDefaultState() throws Exception {
+        ApiTest plain = new ApiTest();
+        BatchConfig config = new BatchConfig();
+        config.setParallelism(4);
+
+        try {
+            plain.executeAll(Arrays.asList(
+                    RequestSpec.get(server.buildGetRequestUri(HttpStatus.SC_OK))), config);
+        } finally {
+            plain.shutdown();
+        }
+    }
+
+    @Test
+    public void testEmptyBatch() throws Exception {
+        assertEquals(Collections.emptyList(),
+                apiTest.executeAll(Collections.<RequestSpec> emptyList()));
+    }
+
+    @Test
+    public void testFailuresReportedAfterAllRequests() throws Exception {
+        IOException failure = new IOException("connection refused");
+        ApiTest inMemory = createInMemoryApiTest(failure);
+        URI okUri = new URI("http://localhost/ok");
+        BatchConfig config = new BatchConfig();
+        config.setParallelism(1);
+
+        try {
+            inMemory.executeAll(Arrays.asList(RequestSpec.get(okUri),
+                    RequestSpec.get(failingUri), RequestSpec.get(okUri)), config);
+            fail("Failure not reported");
+        } catch (BatchException e) {
+            assertSame(failure, e.getCause());
+            assertEquals(Collections.singleton(1), e.getFailures().keySet());
+            assertEquals(0, e.getSkipped());
+            assertNotNull(e.getContexts().get(0));
+            assertNull(e.getContexts().get(1));
+            assertNotNull(e.getContexts().get(2));
+        }
+    }
+
+    @Test
+    public void testStopOnFirstFailure() throws Exception {
+        ApiTest inMemory = createInMemoryApiTest(new IOException("connection refused"));
+        URI okUri = new URI("http://localhost/ok");
+        BatchConfig config = new BatchConfig();
+        config.setParallelism(1);
+        config.setStopOnFirstFailure(true);
+
+        try {
+            inMemory.executeAll(Arrays.asList(RequestSpec.get(okUri),
+                    RequestSpec.get(failingUri), RequestSpec.get(okUri),
+                    RequestSpec.get(okUri)), config);
+            fail("Failure not reported");
+        } catch (BatchException e) {
+            assertEquals(Collections.singleton(1), e.getFailures().keySet());
+            assertEquals(2, e.getSkipped());
+            assertNotNull(e.getContexts().get(0));
+            assertNull(e.getContexts().get(2));
+            assertNull(e.getContexts().get(3));
+        }
+    }
+
+    @Test
+    public void testErrorsReportedAsFailures() throws Exception {
+        NoClassDefFoundError error = new NoClassDefFoundError("org/apache/hc/Missing");
+        ApiTest inMemory = createInMemoryApiTest(error);
+        URI okUri = new URI("http://localhost/ok");
+        BatchConfig config = new BatchConfig();
+        config.setParallelism(2);
+
+        try {
+            inMemory.executeAll(Arrays.asList(RequestSpec.get(okUri),
+                    RequestSpec.get(failingUri), RequestSpec.get(okUri),
+                    RequestSpec.get(okUri)), config);
+            fail("Error not reported");
+        } catch (BatchException e) {
+            assertSame(error, e.getCause());
+            assertEquals(Collections.singleton(1), e.getFailures().keySet());
+            assertEquals(0, e.getSkipped());
+            assertNotNull(e.getContexts().get(0));
+            assertNotNull(e.getContexts().get(2));
+            assertNotNull(e.getContexts().get(3));
+        }
+    }
+
+    private ApiTest createInMemoryApiTest(final Throwable failure) {
+        InMemoryTransport transport = new InMemoryTransport();
+        transport.register("/ok", new HttpRequestHandler() {
+            public void handle(HttpRequest request, HttpResponse response, HttpContext context) {
+            }
+        });
+        transport.register("/fail", new HttpRequestHandler() {
+            public void handle(HttpRequest request, HttpResponse response, HttpContext context)
+                    throws IOException {
+                if (failure instanceof Error) {
+                    throw (Error) failure;
+                }
+                throw (IOException) failure;
+            }
+        });
+        ApiTest inMemory = new ApiTest();
+        inMemory.setTestState(ApiTesterModule.createTestState(transport));
+        return inMemory;
+    }
+}
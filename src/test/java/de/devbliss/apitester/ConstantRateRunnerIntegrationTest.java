@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+
+import org.apache.http.HttpStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.devbliss.apitester.LoadRunner.Scenario;
+import de.devbliss.apitester.dummyserver.DummyApiServer;
+
+/**
+ * Tests {@link ConstantRateRunner} against an embedded local instance of {@link DummyApiServer}.
+ *
+ * @author hschuetz
+ *
+ */
+public class ConstantRateRunnerIntegrationTest {
+
+    private static final Scenario SLOW_SCENARIO = new Scenario() {
+        public void run(ApiTest apiTest) throws Exception {
+            Thread.sleep(50);
+        }
+    };
+
+    private DummyApiServer server;
+    private ConstantRateRunner runner;
+    private RateConfig config;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new DummyApiServer();
+        server.start(false);
+        runner = new ConstantRateRunner(new ConnectionPoolConfig());
+        config = new RateConfig();
+    }
+
+    @After
+    public void shutDown() throws Exception {
+        runner.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void testRequestsSentAtRate() throws Exception {
+        final URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+        config.setRequestsPerSecond(200);
+        config.setDurationMillis(500);
+
+        RateSummary summary = runner.run(config, new Scenario() {
+            public void run(ApiTest apiTest) throws Exception {
+                ApiTestUtil.assertOk(apiTest.get(uri).apiResponse);
+            }
+        });
+
+        assertEquals(summary.toString(), 100, summary.getIterations() + summary.getDropped());
+        assertEquals(summary.toString(), 0, summary.getErrors());
+        assertEquals(summary.getIterations() + summary.getDropped(),
+                summary.getLatency().getTotalCount());
+        assertEquals(summary.getIterations(), summary.getServiceTime().getTotalCount());
+        assertTrue(summary.getServiceTimeNanos(50) <= summary.getLatencyNanos(50));
+    }
+
+    @Test
+    public void testLatencyMeasuredFromDueTimeWhenClientFallsBehind() throws Exception {
+        config.setRequestsPerSecond(100);
+        config.setDurationMillis(200);
+        config.setMaxOutstanding(1);
+        config.setMaxDelayMillis(-1);
+
+        RateSummary summary = runner.run(config, SLOW_SCENARIO);
+
+        assertEquals(20, summary.getIterations());
+        assertEquals(0, summary.getDropped());
+        assertTrue(summary.toString(), summary.getDelayed() >= 19);
+        // a closed loop would only have seen the service time of about 50 ms
+        assertTrue(summary.toString(), summary.getServiceTimeNanos(100) < 200000000L);
+        assertTrue(summary.toString(), summary.getLatencyNanos(100) > 500000000L);
+    }
+
+    @Test
+    public void testRequestsDroppedWhenTooLate() throws Exception {
+        config.setRequestsPerSecond(100);
+        config.setDurationMillis(200);
+        config.setMaxOutstanding(1);
+        config.setMaxDelayMillis(20);
+
+        RateSummary summary = runner.run(config, SLOW_SCENARIO);
+
+        assertEquals(20, summary.getIterations() + summary.getDropped());
+        assertTrue(summary.toString(), summary.getDropped() >= 10);
+        // the dropped slots are recorded as well, each at about the maximum delay
+        assertEquals(20, summary.getLatency().getTotalCount());
+        assertTrue(summary.toString(), summary.getLatencyNanos(50) >= 20000000L);
+        assertTrue(summary.toString(), summary.getLatencyNanos(100) < 200000000L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRateRequired() throws Exception {
+        config.setDurationMillis(100);
+        runner.run(config, SLOW_SCENARIO);
+    }
+}
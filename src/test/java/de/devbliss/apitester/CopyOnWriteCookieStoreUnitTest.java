@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+
+import org.apache.http.cookie.Cookie;
+import org.apache.http.impl.cookie.BasicClientCookie;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link CopyOnWriteCookieStore}.
+ *
+ * @author hschuetz
+ *
+ */
+public class CopyOnWriteCookieStoreUnitTest {
+
+    private CopyOnWriteCookieStore cookieStore;
+
+    @Before
+    public void setUp() {
+        cookieStore = new CopyOnWriteCookieStore();
+    }
+
+    @Test
+    public void testSnapshotNotAffectedByChanges() {
+        cookieStore.addCookie(createCookie("batman", "robin", "/"));
+        List<Cookie> snapshot = cookieStore.getCookies();
+
+        cookieStore.addCookie(createCookie("joker", "harley", "/"));
+        cookieStore.clear();
+
+        assertEquals(1, snapshot.size());
+        assertEquals("robin", snapshot.get(0).getValue());
+        assertTrue(cookieStore.getCookies().isEmpty());
+    }
+
+    @Test
+    public void testSnapshotNotCopiedWithoutChanges() {
+        cookieStore.addCookie(createCookie("batman", "robin", "/"));
+        assertTrue(cookieStore.getCookies() == cookieStore.getCookies());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotIsReadOnly() {
+        cookieStore.getCookies().add(createCookie("batman", "robin", "/"));
+    }
+
+    @Test
+    public void testCookieWithSameIdentityReplaced() {
+        cookieStore.addCookie(createCookie("batman", "robin", "/"));
+        cookieStore.addCookie(createCookie("batman", "alfred", "/"));
+        cookieStore.addCookie(createCookie("batman", "catwoman", "/cave"));
+
+        List<Cookie> cookies = cookieStore.getCookies();
+        assertEquals(2, cookies.size());
+        assertEquals("alfred", cookies.get(0).getValue());
+        assertEquals("catwoman", cookies.get(1).getValue());
+    }
+
+    @Test
+    public void testExpiredCookieRemovesExisting() {
+        cookieStore.addCookie(createCookie("batman", "robin", "/"));
+        BasicClientCookie expired = createCookie("batman", "", "/");
+        expired.setExpiryDate(new Date(System.currentTimeMillis() - 1000));
+        cookieStore.addCookie(expired);
+
+        assertTrue(cookieStore.getCookies().isEmpty());
+    }
+
+    @Test
+    public void testClearExpired() {
+        BasicClientCookie expiring = createCookie("batman", "robin", "/");
+        expiring.setExpiryDate(new Date(System.currentTimeMillis() + 60000));
+        cookieStore.addCookie(expiring);
+        cookieStore.addCookie(createCookie("joker", "harley", "/"));
+
+        assertFalse(cookieStore.clearExpired(new Date()));
+        assertTrue(cookieStore.clearExpired(new Date(System.currentTimeMillis() + 120000)));
+        assertEquals(1, cookieStore.getCookies().size());
+        assertEquals("joker", cookieStore.getCookies().get(0).getName());
+    }
+
+    private BasicClientCookie createCookie(String name, String value, String path) {
+        BasicClientCookie cookie = new BasicClientCookie(name, value);
+        cookie.setDomain("localhost");
+        cookie.setPath(path);
+        return cookie;
+    }
+}
@@ -16,6 +16,7 @@ package de.devbliss.apitester;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.when;
 
@@ -29,7 +30,7 @@ import org.apache.http.HttpStatus;
 import org.apache.http.client.CookieStore;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.cookie.Cookie;
-import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -37,6 +38,8 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import com.google.gson.Gson;
+
 import de.devbliss.apitester.dummyserver.DummyApiServer;
 import de.devbliss.apitester.dummyserver.DummyDto;
 import de.devbliss.apitester.factory.GetFactory;
@@ -102,6 +105,26 @@ public class GetterIntegrationTest {
         assertEquals(DummyDto.createSampleInstance(), result);
     }
 
+    @Test
+    public void testGetRecordsLatency() throws Exception {
+        LatencyStats latencyStats = new LatencyStats();
+        ApiTesterModule.setLatencyStats(latencyStats);
+        try {
+            URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+            Context first = Getter.get(uri);
+            Context second = Getter.get(uri);
+
+            assertTrue(first.elapsedNanos > 0);
+            assertTrue(second.getElapsedMillis() >= 0);
+            EndpointStats stats = latencyStats.getEndpoint("GET", uri);
+            assertEquals(2, stats.getCount());
+            assertTrue(stats.getLatencyNanos(100) >= Math.max(first.elapsedNanos,
+                    second.elapsedNanos));
+        } finally {
+            ApiTesterModule.setLatencyStats(new LatencyStats());
+        }
+    }
+
     @Test
     public void testGetNoContent() throws Exception {
         URI uri = server.buildGetRequestUri(HttpStatus.SC_NO_CONTENT);
@@ -174,7 +197,7 @@ public class GetterIntegrationTest {
     @Test
     public void testGetWithCookiesAndHeaders() throws Exception {
         URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
-        TestState testState = new TestState(new DefaultHttpClient(), cookieStore);
+        TestState testState = new TestState(HttpClientBuilder.create().build(), cookieStore);
         Context context = Getter.get(uri, testState, getCustomFactoryWithHeaders());
         ApiResponse response = context.apiResponse;
         ApiRequest request = context.apiRequest;
@@ -190,6 +213,30 @@ public class GetterIntegrationTest {
         assertNull(request.getHeader(COOKIE_NAME_1));
     }
 
+    @Test
+    public void testGetDiscardingBody() throws Exception {
+        URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+        ApiTest apiTest = new ApiTest();
+        apiTest.setResponseMode(ResponseMode.DISCARD_BODY);
+        ApiResponse response = apiTest.get(uri).apiResponse;
+        ApiTestUtil.assertOk(response);
+        assertTrue(response.isPayloadDiscarded());
+        assertEquals(new Gson().toJson(DummyDto.createSampleInstance()).length(),
+                response.bytesReceived);
+        assertTrue(response.getHeader("Content-Type").startsWith("application/json"));
+
+        ApiResponse full = apiTest.withResponseMode(ResponseMode.FULL).get(uri).apiResponse;
+        assertEquals(DummyDto.createSampleInstance(), full.payloadJsonAs(DummyDto.class));
+        assertEquals(full.getPayloadBytes().length, full.bytesReceived);
+        apiTest.shutdown();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDiscardedPayloadCanNotBeRead() throws Exception {
+        URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+        Getter.get(uri, null, null, null, ResponseMode.DISCARD_BODY).apiResponse.getPayload();
+    }
+
     private Map<String,String> createCustomHeaders() {
     	Map<String, String> returnValue = new HashMap<String, String>();
     	returnValue.put(HEADER_NAME1, HEADER_VALUE1);
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link Headers}.
+ *
+ * @author hschuetz
+ *
+ */
+public class HeadersUnitTest {
+
+    private Headers headers;
+
+    @Before
+    public void setUp() {
+        headers = new Headers(new Header[] {
+                new BasicHeader("Content-Type", "application/json"),
+                new BasicHeader("Set-Cookie", "batman=robin"),
+                new BasicHeader("set-cookie", "joker=harley")});
+    }
+
+    @Test
+    public void testLookupIsCaseInsensitive() {
+        assertEquals("application/json", headers.getFirst("CONTENT-TYPE"));
+        assertEquals("application/json", headers.getLast("content-type"));
+        assertEquals(Arrays.asList("application/json"), headers.getAll("Content-type"));
+    }
+
+    @Test
+    public void testRepeatedHeaderKeepsAllValues() {
+        assertEquals(Arrays.asList("batman=robin", "joker=harley"), headers.getAll("Set-Cookie"));
+        assertEquals("batman=robin", headers.getFirst("Set-Cookie"));
+        assertEquals("joker=harley", headers.getLast("Set-Cookie"));
+        assertEquals(3, headers.getHeaderCount());
+    }
+
+    @Test
+    public void testMissingHeader() {
+        assertNull(headers.getFirst("Location"));
+        assertNull(headers.getLast("Location"));
+        assertEquals(Collections.emptyList(), headers.getAll("Location"));
+    }
+
+    @Test
+    public void testMapViewUsesLowerCaseNamesAndLastValue() {
+        assertEquals(2, headers.size());
+        assertEquals("joker=harley", headers.get("set-cookie"));
+        assertTrue(headers.containsKey("content-type"));
+        assertFalse(headers.containsKey("Content-Type"));
+
+        Map<String, String> expected = new HashMap<String, String>();
+        expected.put("content-type", "application/json");
+        expected.put("set-cookie", "joker=harley");
+        assertEquals(expected, headers);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testMapViewIsReadOnly() {
+        headers.put("location", "/");
+    }
+
+    @Test
+    public void testOf() {
+        assertSame(headers, Headers.of(headers));
+
+        Headers copy = Headers.of(Collections.singletonMap("location", "/users/1"));
+        assertEquals("/users/1", copy.getFirst("Location"));
+        assertEquals(Arrays.asList("/users/1"), copy.getAll("LOCATION"));
+    }
+
+    @Test
+    public void testApiResponseKeepsRepeatedHeaders() {
+        ApiResponse response = new ApiResponse(200, "OK", "", headers);
+        assertEquals("joker=harley", response.getHeader("Set-Cookie"));
+        assertEquals(Arrays.asList("batman=robin", "joker=harley"),
+                response.getHeaders("set-cookie"));
+        assertSame(headers, response.headers);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link LatencyStats} and {@link EndpointStats}.
+ *
+ * @author hschuetz
+ *
+ */
+public class LatencyStatsUnitTest {
+
+    private static final int THREADS = 8;
+    private static final int RECORDS_PER_THREAD = 1000;
+
+    private LatencyStats latencyStats;
+
+    @Before
+    public void setUp() {
+        latencyStats = new LatencyStats();
+    }
+
+    @Test
+    public void testEndpointIgnoresQuery() throws Exception {
+        latencyStats.record("GET", new URI("http://localhost:8080/users?page=1"), 1000);
+        latencyStats.record("GET", new URI("http://localhost:8080/users?page=2"), 3000);
+        latencyStats.record("POST", new URI("http://localhost:8080/users"), 2000);
+
+        assertEquals(2, latencyStats.getEndpoints().size());
+        EndpointStats stats = latencyStats.getEndpoints().get("GET http://localhost:8080/users");
+        assertEquals(2, stats.getCount());
+        assertEquals(3000, stats.getLatencyNanos(100), 30);
+    }
+
+    @Test
+    public void testIdsInPathShareEndpoint() throws Exception {
+        latencyStats.record("GET", new URI("http://localhost/users/42/orders/7"), 1000);
+        latencyStats.record("GET", new URI("http://localhost/users/43/orders/8"), 1000);
+        latencyStats.record("GET",
+                new URI("http://localhost/users/123e4567-e89b-12d3-a456-426614174000/orders"), 1000);
+        latencyStats.record("GET", new URI("http://localhost/users/5f1d7c2ab3e94f0a/orders"), 1000);
+        latencyStats.record("GET", new URI("http://localhost/users/me/orders"), 1000);
+
+        assertEquals(3, latencyStats.getEndpoints().size());
+        assertEquals(2, latencyStats.getEndpoints()
+                .get("GET http://localhost/users/{id}/orders/{id}").getCount());
+        assertEquals(2, latencyStats.getEndpoints()
+                .get("GET http://localhost/users/{id}/orders").getCount());
+        assertEquals(1, latencyStats.getEndpoints()
+                .get("GET http://localhost/users/me/orders").getCount());
+    }
+
+    @Test
+    public void testValuesAboveHighestTrackableClamped() throws Exception {
+        EndpointStats stats = latencyStats.getEndpoint("GET", new URI("http://localhost/users"));
+        stats.record(MergedRecorder.HIGHEST_TRACKABLE_VALUE * 2);
+        assertEquals(1, stats.getCount());
+        assertEquals(MergedRecorder.HIGHEST_TRACKABLE_VALUE,
+                stats.getLatencyNanos(100), MergedRecorder.HIGHEST_TRACKABLE_VALUE / 100);
+    }
+
+    @Test
+    public void testRecordsOfAllThreadsMerged() throws Exception {
+        final EndpointStats stats =
+                latencyStats.getEndpoint("GET", new URI("http://localhost/users"));
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < THREADS; i++) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 1; j <= RECORDS_PER_THREAD; j++) {
+                        stats.record(TimeUnit.MICROSECONDS.toNanos(j));
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        // reading while recording must not lose anything
+        stats.getHistogram();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(THREADS * RECORDS_PER_THREAD, stats.getCount());
+        assertEquals(500000, stats.getLatencyNanos(50), 5000);
+        assertEquals(THREADS * RECORDS_PER_THREAD, stats.getCount());
+    }
+
+    @Test
+    public void testEndpointsLimited() throws Exception {
+        for (int i = 0; i < LatencyStats.MAX_ENDPOINTS + 10; i++) {
+            latencyStats.record("GET", new URI("http://localhost/users/user" + i), 1000);
+        }
+
+        assertEquals(LatencyStats.MAX_ENDPOINTS + 1, latencyStats.getEndpoints().size());
+        assertEquals(10, latencyStats.getEndpoints().get(LatencyStats.OTHER_ENDPOINTS).getCount());
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        URI uri = new URI("http://localhost/users");
+        EndpointStats stats = latencyStats.getEndpoint("GET", uri);
+        stats.record(1000);
+        assertSame(stats, latencyStats.getEndpoint("GET", uri));
+
+        latencyStats.reset();
+        assertEquals(0, stats.getCount());
+        assertTrue(latencyStats.getEndpoints().isEmpty());
+    }
+
+    @Test
+    public void testOutputPercentileDistributions() throws Exception {
+        latencyStats.record("GET", new URI("http://localhost/users"), 2000000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        latencyStats.outputPercentileDistributions(new PrintStream(out, true));
+
+        String output = out.toString();
+        assertTrue(output, output.startsWith("GET http://localhost/users"));
+        assertTrue(output, output.contains("Value     Percentile TotalCount"));
+        assertTrue(output, output.contains("2.01"));
+    }
+}
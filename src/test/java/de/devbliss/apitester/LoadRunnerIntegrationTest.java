@@ -0,0 +1,138 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.devbliss.apitester.LoadRunner.Scenario;
+import de.devbliss.apitester.dummyserver.DummyApiServer;
+
+/**
+ * Tests {@link LoadRunner} against an embedded local instance of {@link DummyApiServer}.
+ *
+ * @author hschuetz
+ *
+ */
+public class LoadRunnerIntegrationTest {
+
+    private static final int USERS = 8;
+
+    private DummyApiServer server;
+    private LoadRunner runner;
+    private LoadConfig config;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new DummyApiServer();
+        server.start(false);
+        runner = new LoadRunner(new ConnectionPoolConfig());
+        config = new LoadConfig();
+        config.setUsers(USERS);
+    }
+
+    @After
+    public void shutDown() throws Exception {
+        runner.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void testIterationsPerUser() throws Exception {
+        final URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+        config.setIterationsPerUser(25);
+
+        LoadSummary summary = runner.run(config, new Scenario() {
+            public void run(ApiTest apiTest) throws Exception {
+                ApiTestUtil.assertOk(apiTest.get(uri).apiResponse);
+            }
+        });
+
+        assertEquals(USERS * 25, summary.getIterations());
+        assertEquals(0, summary.getErrors());
+        assertEquals(USERS * 25, summary.getLatency().getTotalCount());
+        assertTrue(summary.getLatencyNanos(50) > 0);
+        assertTrue(summary.getLatencyNanos(50) <= summary.getLatencyNanos(99.9));
+        assertTrue(summary.getThroughput() > 0);
+        assertTrue(summary.toString(), summary.toString().contains("p99.0="));
+    }
+
+    @Test
+    public void testDuration() throws Exception {
+        final URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+        config.setDurationMillis(300);
+
+        LoadSummary summary = runner.run(config, new Scenario() {
+            public void run(ApiTest apiTest) throws Exception {
+                apiTest.get(uri);
+            }
+        });
+
+        assertTrue(summary.getIterations() > 0);
+        assertTrue(summary.toString(), summary.getElapsedMillis() >= 300);
+    }
+
+    @Test
+    public void testErrorsCounted() throws Exception {
+        final URI uri = server.buildGetRequestUri(HttpStatus.SC_NOT_FOUND);
+        config.setIterationsPerUser(20);
+
+        LoadSummary summary = runner.run(config, new Scenario() {
+            public void run(ApiTest apiTest) throws Exception {
+                ApiTestUtil.assertOk(apiTest.get(uri).apiResponse);
+            }
+        });
+
+        assertEquals(USERS * 20, summary.getErrors());
+        assertEquals(1.0, summary.getErrorRate(), 0);
+        assertEquals(0, summary.getLatency().getTotalCount());
+        assertEquals(LoadRunner.MAX_FAILURES, summary.getFailures().size());
+        assertTrue(summary.getFailures().get(0) instanceof AssertionError);
+    }
+
+    @Test
+    public void testRampUpAndThinkTime() throws Exception {
+        final AtomicInteger iterations = new AtomicInteger();
+        config.setIterationsPerUser(2);
+        config.setRampUpMillis(200);
+        config.setThinkTimeMillis(50);
+
+        LoadSummary summary = runner.run(config, new Scenario() {
+            public void run(ApiTest apiTest) throws Exception {
+                iterations.incrementAndGet();
+            }
+        });
+
+        assertEquals(USERS * 2, iterations.get());
+        // last user starts after 7/8 of the ramp-up and thinks once
+        assertTrue(summary.toString(), summary.getElapsedMillis() >= 175 + 50);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLimitRequired() throws Exception {
+        runner.run(config, new Scenario() {
+            public void run(ApiTest apiTest) throws Exception {
+            }
+        });
+    }
+}
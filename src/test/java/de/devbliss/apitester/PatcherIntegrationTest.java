@@ -29,7 +29,7 @@ import org.apache.http.HttpStatus;
 import org.apache.http.client.CookieStore;
 import org.apache.http.client.methods.HttpPatch;
 import org.apache.http.cookie.Cookie;
-import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -232,7 +232,7 @@ public class PatcherIntegrationTest {
     public void testPatchWithCookiesAndHeaders() throws Exception {
         DummyDto payload = createPayload();
         URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
-        TestState testState = new TestState(new DefaultHttpClient(), cookieStore);
+        TestState testState = new TestState(HttpClientBuilder.create().build(), cookieStore);
         Context wrapper = Patcher.patch(uri, testState, getCustomFactoryWithHeaders(), payload, null);
         ApiResponse response = wrapper.apiResponse;
         ApiRequest request = wrapper.apiRequest;
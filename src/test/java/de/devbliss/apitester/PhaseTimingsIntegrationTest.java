@@ -0,0 +1,136 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+
+import org.apache.http.HttpStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.devbliss.apitester.PhaseTimings.Phase;
+import de.devbliss.apitester.dummyserver.DummyApiServer;
+
+/**
+ * Tests the {@link PhaseTimings} measured by a pooled {@link TestState} and by the default state of
+ * an {@link ApiTest} against an embedded local instance of {@link DummyApiServer}.
+ *
+ * @author hschuetz
+ *
+ */
+public class PhaseTimingsIntegrationTest {
+
+    private DummyApiServer server;
+    private TestState testState;
+    private LatencyStats latencyStats;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new DummyApiServer();
+        server.start(false);
+        testState = ApiTesterModule.createPooledTestState();
+        latencyStats = new LatencyStats();
+        ApiTesterModule.setLatencyStats(latencyStats);
+    }
+
+    @After
+    public void shutDown() throws Exception {
+        ApiTesterModule.setLatencyStats(new LatencyStats());
+        testState.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void testNewConnectionMeasuresAllPhasesButTls() throws Exception {
+        Context context = Getter.get(server.buildGetRequestUri(HttpStatus.SC_OK), testState);
+        PhaseTimings timings = context.timings;
+
+        for (Phase phase : new Phase[] {Phase.POOL_WAIT, Phase.DNS, Phase.CONNECT,
+                Phase.REQUEST_WRITE, Phase.TIME_TO_FIRST_BYTE, Phase.BODY_READ}) {
+            assertTrue(phase + " " + timings, timings.isMeasured(phase));
+        }
+        assertFalse(timings.toString(), timings.isMeasured(Phase.TLS));
+        assertTrue(timings.toString(), sum(timings) <= context.elapsedNanos);
+    }
+
+    @Test
+    public void testDefaultStateMeasuresAllPhasesButPoolWaitAndTls() throws Exception {
+        ApiTest apiTest = new ApiTest();
+        try {
+            URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+            Context context = apiTest.get(uri);
+            PhaseTimings timings = context.timings;
+
+            for (Phase phase : new Phase[] {Phase.DNS, Phase.CONNECT, Phase.REQUEST_WRITE,
+                    Phase.TIME_TO_FIRST_BYTE, Phase.BODY_READ}) {
+                assertTrue(phase + " " + timings, timings.isMeasured(phase));
+            }
+            assertFalse(timings.toString(), timings.isMeasured(Phase.POOL_WAIT));
+            assertFalse(timings.toString(), timings.isMeasured(Phase.TLS));
+            assertTrue(timings.toString(), sum(timings) <= context.elapsedNanos);
+
+            timings = apiTest.get(uri).timings;
+            assertFalse(timings.toString(), timings.isMeasured(Phase.CONNECT));
+            assertTrue(timings.toString(), timings.isMeasured(Phase.TIME_TO_FIRST_BYTE));
+        } finally {
+            apiTest.shutdown();
+        }
+    }
+
+    @Test
+    public void testReusedConnectionNotConnectedAgain() throws Exception {
+        URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+        Getter.get(uri, testState);
+        PhaseTimings timings = Getter.get(uri, testState).timings;
+
+        assertFalse(timings.toString(), timings.isMeasured(Phase.DNS));
+        assertFalse(timings.toString(), timings.isMeasured(Phase.CONNECT));
+        assertTrue(timings.toString(), timings.isMeasured(Phase.TIME_TO_FIRST_BYTE));
+    }
+
+    @Test
+    public void testPhasesAggregated() throws Exception {
+        URI uri = server.buildPostRequestUri(HttpStatus.SC_OK);
+        for (int i = 0; i < 5; i++) {
+            Poster.post(uri, "payload", testState);
+        }
+
+        PhaseStats phaseStats = latencyStats.getPhaseStats();
+        assertEquals(5, phaseStats.getHistogram(Phase.TIME_TO_FIRST_BYTE).getTotalCount());
+        assertEquals(5, phaseStats.getHistogram(Phase.REQUEST_WRITE).getTotalCount());
+        assertEquals(1, phaseStats.getHistogram(Phase.CONNECT).getTotalCount());
+        assertEquals(0, phaseStats.getHistogram(Phase.TLS).getTotalCount());
+        assertTrue(phaseStats.getNanos(Phase.TIME_TO_FIRST_BYTE, 50) > 0);
+    }
+
+    @Test
+    public void testTimingsNotLeakedToOtherRequests() throws Exception {
+        Getter.get(server.buildGetRequestUri(HttpStatus.SC_OK), testState);
+        assertEquals(0, PhaseTimings.recorded(Phase.TIME_TO_FIRST_BYTE));
+    }
+
+    private static long sum(PhaseTimings timings) {
+        long sum = 0;
+        for (Phase phase : Phase.values()) {
+            sum += Math.max(0, timings.getNanos(phase));
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.http.HttpStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.devbliss.apitester.dummyserver.DummyApiServer;
+import de.devbliss.apitester.dummyserver.DummyDto;
+
+/**
+ * Tests a pooled {@link TestState} shared by several threads against an embedded local instance of
+ * {@link DummyApiServer}.
+ *
+ * @author hschuetz
+ *
+ */
+public class PooledTestStateIntegrationTest {
+
+    private static final int THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 25;
+
+    private DummyApiServer server;
+    private TestState testState;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new DummyApiServer();
+        server.start(false);
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setMaxPerRoute(THREADS);
+        config.setMaxTotal(THREADS);
+        testState = ApiTesterModule.createPooledTestState(config);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void shutDown() throws Exception {
+        executor.shutdownNow();
+        testState.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void testSharedStateFromManyThreads() throws Exception {
+        final URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+        List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(new Callable<Integer>() {
+                public Integer call() throws Exception {
+                    int ok = 0;
+                    for (int j = 0; j < REQUESTS_PER_THREAD; j++) {
+                        ApiResponse response = Getter.get(uri, testState).apiResponse;
+                        if (response.isStatusOk()
+                                && DummyDto.createSampleInstance().equals(
+                                        response.payloadJsonAs(DummyDto.class))) {
+                            ok++;
+                        }
+                    }
+                    return ok;
+                }
+            }));
+        }
+
+        for (Future<Integer> result : results) {
+            assertEquals(REQUESTS_PER_THREAD, result.get().intValue());
+        }
+    }
+
+    @Test
+    public void testCookiesSharedBetweenThreads() throws Exception {
+        testState.addCookie(new Cookie("session", "shared", null, "/", "localhost", false, false));
+        final URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+        List<Future<Context>> results = new ArrayList<Future<Context>>();
+
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(new Callable<Context>() {
+                public Context call() throws Exception {
+                    return Getter.get(uri, testState);
+                }
+            }));
+        }
+
+        for (Future<Context> result : results) {
+            Context context = result.get();
+            assertTrue(context.apiResponse.isStatusOk());
+            assertEquals("shared", context.apiRequest.getCookie("session"));
+        }
+    }
+}
@@ -33,7 +33,7 @@ import org.apache.http.HttpStatus;
 import org.apache.http.client.CookieStore;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.cookie.Cookie;
-import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -246,7 +246,7 @@ public class PosterIntegrationTest {
     public void testPostWithCookiesAndHeaders() throws Exception {
         DummyDto payload = createPayload();
         URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
-        TestState testState = new TestState(new DefaultHttpClient(), cookieStore);
+        TestState testState = new TestState(HttpClientBuilder.create().build(), cookieStore);
         Context wrapper = Poster.post(uri, payload, testState, getCustomFactoryWithHeaders(), null);
         ApiResponse response = wrapper.apiResponse;
         ApiRequest request = wrapper.apiRequest;
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestHandler;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.devbliss.apitester.transport.impl.InMemoryTransport;
+
+/**
+ * Tests that {@link RequestInterceptor}s added to a {@link TestState} are called by all verbs, in
+ * the documented order, using an {@link InMemoryTransport}.
+ *
+ * @author hschuetz
+ *
+ */
+public class RequestInterceptorUnitTest {
+
+    private static final String HEADER = "X-Intercepted";
+
+    private URI uri;
+    private List<String> calls;
+    private List<String> receivedHeaders;
+    private TestState testState;
+
+    @Before
+    public void setUp() throws Exception {
+        uri = new URI("http://localhost/resource");
+        calls = Collections.synchronizedList(new ArrayList<String>());
+        receivedHeaders = new ArrayList<String>();
+        testState = ApiTesterModule.createTestState(new InMemoryTransport(
+                new HttpRequestHandler() {
+                    public void handle(HttpRequest request, HttpResponse response,
+                            HttpContext context) throws HttpException, IOException {
+                        if (request.containsHeader(HEADER)) {
+                            receivedHeaders.add(request.getFirstHeader(HEADER).getValue());
+                        }
+                    }
+                }));
+    }
+
+    @Test
+    public void testCalledInOrderByAllVerbs() throws Exception {
+        testState.addInterceptor(new RecordingInterceptor("first"));
+        testState.addInterceptor(new RecordingInterceptor("second"));
+        ApiTest apiTest = new ApiTest();
+        apiTest.setTestState(testState);
+
+        Getter.get(uri, testState);
+        apiTest.post(uri, "payload");
+        apiTest.put(uri, "payload");
+        apiTest.patch(uri, "payload");
+        Deleter.delete(uri, testState);
+
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 5; i++) {
+            expected.addAll(Arrays.asList("first before", "second before", "second after",
+                    "first after"));
+        }
+        assertEquals(expected, calls);
+        assertEquals(Collections.nCopies(5, "first,second"), receivedHeaders);
+    }
+
+    @Test
+    public void testHeadersAddedBeforeCapture() throws Exception {
+        testState.addInterceptor(new RecordingInterceptor("first"));
+        Context context = Getter.get(uri, testState);
+        assertEquals("first", context.apiRequest.getHeader(HEADER));
+    }
+
+    @Test
+    public void testAfterReceiveReplacesContext() throws Exception {
+        final Context replacement = new Context(null, null);
+        testState.addInterceptor(new RequestInterceptorAdapter() {
+            @Override
+            public Context afterReceive(Context context) {
+                return replacement;
+            }
+        });
+        assertSame(replacement, Getter.get(uri, testState));
+    }
+
+    @Test
+    public void testOnErrorCalledInReverseOrder() throws Exception {
+        final IOException failure = new IOException("connection refused");
+        TestState failing = ApiTesterModule.createTestState(new InMemoryTransport(
+                new HttpRequestHandler() {
+                    public void handle(HttpRequest request, HttpResponse response,
+                            HttpContext context) throws IOException {
+                        throw failure;
+                    }
+                }));
+        failing.addInterceptor(new RecordingInterceptor("first"));
+        failing.addInterceptor(new RecordingInterceptor("second"));
+
+        try {
+            Getter.get(uri, failing);
+            fail("Failure not thrown on");
+        } catch (IOException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(Arrays.asList("first before", "second before", "second error",
+                "first error"), calls);
+    }
+
+    @Test
+    public void testAddAndRemove() throws Exception {
+        RequestInterceptor first = new RecordingInterceptor("first");
+        RequestInterceptor second = new RecordingInterceptor("second");
+        testState.addInterceptor(first);
+        testState.addInterceptor(second);
+        assertEquals(Arrays.asList(first, second), testState.getInterceptors());
+
+        assertTrue(testState.removeInterceptor(first));
+        assertEquals(Arrays.asList(second), testState.getInterceptors());
+        Getter.get(uri, testState);
+        assertEquals(Arrays.asList("second before", "second after"), calls);
+    }
+
+    @Test
+    public void testCopiedToStateSharingClient() throws Exception {
+        RequestInterceptor interceptor = new RecordingInterceptor("first");
+        testState.addInterceptor(interceptor);
+        TestState sharing = ApiTesterModule.createTestStateSharingClient(testState);
+        assertEquals(Arrays.asList(interceptor), sharing.getInterceptors());
+    }
+
+    private class RecordingInterceptor implements RequestInterceptor {
+
+        private final String name;
+
+        RecordingInterceptor(String name) {
+            this.name = name;
+        }
+
+        public void beforeSend(HttpUriRequest request) {
+            calls.add(name + " before");
+            String value = request.containsHeader(HEADER)
+                    ? request.getFirstHeader(HEADER).getValue() + "," + name : name;
+            request.setHeader(HEADER, value);
+        }
+
+        public Context afterReceive(Context context) {
+            calls.add(name + " after");
+            return context;
+        }
+
+        public void onError(HttpUriRequest request, Exception e) {
+            calls.add(name + " error");
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import static de.devbliss.apitester.dummyserver.HandlerUtils.handleErrors;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.UUID;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.http.client.utils.URIBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.devbliss.apitester.SessionRunner.Session;
+import de.devbliss.apitester.SessionRunner.ThreadMode;
+import de.devbliss.apitester.dummyserver.DummyApiServer;
+import de.devbliss.apitester.dummyserver.Handler;
+
+/**
+ * Tests {@link SessionRunner} against an embedded local instance of {@link DummyApiServer}.
+ *
+ * @author hschuetz
+ *
+ */
+public class SessionRunnerIntegrationTest {
+
+    private static final int SESSIONS = 50;
+
+    private DummyApiServer server;
+    private SessionRunner runner;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new DummyApiServer();
+        server.start(true);
+        // every session logs in with its own id and expects to get its own cookie back
+        server.setHandler(new Handler() {
+            public void handle(HttpServletRequest request, HttpServletResponse response)
+                    throws Exception {
+                String id = request.getParameter("id");
+                if (request.getRequestURI().endsWith("login")) {
+                    response.addCookie(new javax.servlet.http.Cookie("user", id));
+                } else {
+                    assertEquals(1, request.getCookies().length);
+                    assertEquals(id, request.getCookies()[0].getValue());
+                }
+            }
+        });
+    }
+
+    @After
+    public void shutDown() throws Exception {
+        if (runner != null) {
+            runner.shutdown();
+        }
+        server.stop();
+    }
+
+    @Test
+    public void testPlatformThreadSessionsHaveOwnCookies() throws Exception {
+        runner = new SessionRunner(ThreadMode.PLATFORM, new ConnectionPoolConfig());
+        assertTrue(runner.run(SESSIONS, createSession()).isEmpty());
+    }
+
+    @Test
+    public void testVirtualThreadSessionsHaveOwnCookies() throws Exception {
+        assumeTrue(SessionRunner.isVirtualThreadSupported());
+        runner = new SessionRunner(ThreadMode.VIRTUAL, new ConnectionPoolConfig());
+        assertTrue(runner.run(SESSIONS, createSession()).isEmpty());
+    }
+
+    @Test
+    public void testFailuresReported() throws Exception {
+        runner = new SessionRunner(ThreadMode.PLATFORM, new ConnectionPoolConfig());
+        List<Throwable> failures = runner.run(3, new Session() {
+            public void run(ApiTest apiTest) throws Exception {
+                throw new IllegalStateException("boom");
+            }
+        });
+        assertEquals(3, failures.size());
+        assertEquals("boom", failures.get(0).getMessage());
+    }
+
+    private Session createSession() {
+        return new Session() {
+            public void run(ApiTest apiTest) throws Exception {
+                String id = UUID.randomUUID().toString();
+                handleErrors(apiTest.get(buildUri("login", id)).apiResponse);
+                handleErrors(apiTest.get(buildUri("me", id)).apiResponse);
+            }
+        };
+    }
+
+    private URI buildUri(String path, String id) throws URISyntaxException {
+        return new URIBuilder(server.buildRequestUri(path)).addParameter("id", id).build();
+    }
+}
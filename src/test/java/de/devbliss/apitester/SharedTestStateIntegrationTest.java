@@ -0,0 +1,111 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester;
+
+import static de.devbliss.apitester.dummyserver.HandlerUtils.handleErrors;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.devbliss.apitester.dummyserver.DummyApiServer;
+import de.devbliss.apitester.dummyserver.Handler;
+
+/**
+ * Tests the shared client used by the static methods of {@link Getter} and friends when they are
+ * called without a {@link TestState}.
+ *
+ * @author hschuetz
+ *
+ */
+public class SharedTestStateIntegrationTest {
+
+    private static final int REQUESTS = 20;
+
+    private DummyApiServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new DummyApiServer();
+        server.start(true);
+    }
+
+    @After
+    public void shutDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void testConnectionsReused() throws Exception {
+        server.setHandler(new Handler() {
+            public void handle(HttpServletRequest request, HttpServletResponse response)
+                    throws Exception {
+                response.getWriter().write("ok");
+            }
+        });
+        URI uri = server.buildRequestUri("reuse");
+        ConnectionStats stats = ApiTesterModule.getSharedConnectionStats();
+        long requestsBefore = stats.getRequests();
+        long connectionsBefore = stats.getConnectionsOpened();
+
+        for (int i = 0; i < REQUESTS; i++) {
+            handleErrors(Getter.get(uri).apiResponse);
+        }
+
+        assertThat(stats.getRequests() - requestsBefore, equalTo((long) REQUESTS));
+        assertTrue(stats.getConnectionsOpened() - connectionsBefore < REQUESTS);
+    }
+
+    @Test
+    public void testCookiesNotSharedBetweenStaticCalls() throws Exception {
+        server.setHandler(new Handler() {
+            public void handle(HttpServletRequest request, HttpServletResponse response)
+                    throws Exception {
+                response.addCookie(new javax.servlet.http.Cookie("batman", "robin"));
+            }
+        });
+        handleErrors(Getter.get(server.buildRequestUri("blah")).apiResponse);
+
+        server.setHandler(new Handler() {
+            public void handle(HttpServletRequest request, HttpServletResponse response)
+                    throws Exception {
+                if (request.getCookies() != null) {
+                    assertThat(request.getCookies().length, equalTo(0));
+                }
+            }
+        });
+        handleErrors(Getter.get(server.buildRequestUri("blah")).apiResponse);
+    }
+
+    @Test
+    public void testShutdownKeepsSharedClientOpen() throws Exception {
+        server.setHandler(new Handler() {
+            public void handle(HttpServletRequest request, HttpServletResponse response)
+                    throws Exception {
+                response.getWriter().write("ok");
+            }
+        });
+        ApiTesterModule.createSharedTestState().shutdown();
+        handleErrors(Getter.get(server.buildRequestUri("blah")).apiResponse);
+    }
+}
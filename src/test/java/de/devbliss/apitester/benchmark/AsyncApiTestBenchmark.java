@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.http.HttpStatus;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import de.devbliss.apitester.AsyncApiTest;
+import de.devbliss.apitester.ConnectionPoolConfig;
+import de.devbliss.apitester.Context;
+import de.devbliss.apitester.dummyserver.DummyApiServer;
+
+/**
+ * Puts 10,000 GET requests in flight at once from a single thread against a local
+ * {@link DummyApiServer}, using an {@link AsyncApiTest} with one event loop thread, and reports
+ * how long it took until all of them completed and how many threads the JVM needed (including
+ * those of the embedded server). Not a unit test, run it with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=de.devbliss.apitester.benchmark.AsyncApiTestBenchmark
+ * </pre>
+ *
+ * @author hschuetz
+ *
+ */
+public class AsyncApiTestBenchmark {
+
+    private static final int REQUESTS_IN_FLIGHT = 10000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        DummyApiServer server = new DummyApiServer();
+        server.start(false);
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setMaxPerRoute(100);
+        AsyncApiTest apiTest = new AsyncApiTest(config, 1);
+
+        try {
+            URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+            System.out.println("round\trequests\tmillis\treq/s\tpeak threads");
+            for (int round = 1; round <= ROUNDS; round++) {
+                long start = System.nanoTime();
+                List<ListenableFuture<Context>> futures =
+                        new ArrayList<ListenableFuture<Context>>(REQUESTS_IN_FLIGHT);
+                for (int i = 0; i < REQUESTS_IN_FLIGHT; i++) {
+                    futures.add(apiTest.get(uri));
+                }
+                Futures.allAsList(futures).get();
+                long millis = (System.nanoTime() - start) / 1000000;
+                System.out.println(round + "\t" + REQUESTS_IN_FLIGHT + "\t" + millis + "\t"
+                        + (REQUESTS_IN_FLIGHT * 1000L / Math.max(1, millis)) + "\t"
+                        + ManagementFactory.getThreadMXBean().getPeakThreadCount());
+            }
+        } finally {
+            apiTest.shutdown();
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Compares JMH results written with <code>-rf json</code> to a baseline in the same format and
+ * exits with status 1 if any benchmark got slower, or allocates more per operation, by more than
+ * the given fraction. Benchmarks missing from either file are reported but not counted as
+ * regressions. Run it with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=de.devbliss.apitester.benchmark.BenchmarkComparison \
+ *     -Dexec.args="src/test/benchmarks/HotPathBenchmark.json target/hot-path.json 0.2"
+ * </pre>
+ *
+ * @author hschuetz
+ *
+ */
+public class BenchmarkComparison {
+
+    private static final double DEFAULT_TOLERANCE = 0.2;
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+    // allocation of a few bytes per operation comes and goes with inlining decisions
+    private static final double ALLOCATION_SLACK_BYTES = 16;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("usage: BenchmarkComparison <baseline.json> <results.json> "
+                    + "[tolerance, default " + DEFAULT_TOLERANCE + "]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_TOLERANCE;
+        Map<String, JsonObject> baseline = read(new File(args[0]));
+        Map<String, JsonObject> results = read(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonObject> result : results.entrySet()) {
+            JsonObject before = baseline.get(result.getKey());
+            if (before == null) {
+                System.out.println(result.getKey() + "\tnot in baseline");
+                continue;
+            }
+            regressions += compare(result.getKey(), before, result.getValue(), tolerance);
+        }
+        for (String name : baseline.keySet()) {
+            if (!results.containsKey(name)) {
+                System.out.println(name + "\tnot in results");
+            }
+        }
+
+        System.out.println(regressions + " regression(s), tolerance " + tolerance);
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    private static int compare(String name, JsonObject before, JsonObject after,
+            double tolerance) {
+        int regressions = 0;
+        double scoreBefore = primaryScore(before);
+        double scoreAfter = primaryScore(after);
+        // throughput must not drop, any time per operation must not grow
+        boolean throughput = "thrpt".equals(after.get("mode").getAsString());
+        boolean slower = throughput
+                ? scoreAfter < scoreBefore * (1 - tolerance)
+                : scoreAfter > scoreBefore * (1 + tolerance);
+        report(name, after.getAsJsonObject("primaryMetric").get("scoreUnit").getAsString(),
+                scoreBefore, scoreAfter, slower);
+        if (slower) {
+            regressions++;
+        }
+
+        Double allocationBefore = allocation(before);
+        Double allocationAfter = allocation(after);
+        if (allocationBefore != null && allocationAfter != null) {
+            boolean more = allocationAfter > allocationBefore * (1 + tolerance)
+                    + ALLOCATION_SLACK_BYTES;
+            report(name, "B/op", allocationBefore, allocationAfter, more);
+            if (more) {
+                regressions++;
+            }
+        }
+        return regressions;
+    }
+
+    private static void report(String name, String unit, double before, double after,
+            boolean regression) {
+        System.out.println(String.format("%s\t%.1f -> %.1f %s%s", name, before, after, unit,
+                regression ? "\tREGRESSION" : ""));
+    }
+
+    private static double primaryScore(JsonObject result) {
+        return result.getAsJsonObject("primaryMetric").get("score").getAsDouble();
+    }
+
+    private static Double allocation(JsonObject result) {
+        JsonObject secondary = result.getAsJsonObject("secondaryMetrics");
+        if (secondary == null) {
+            return null;
+        }
+        for (Map.Entry<String, JsonElement> metric : secondary.entrySet()) {
+            // older JMH versions prefix the profiler metrics with a middle dot
+            if (metric.getKey().endsWith(ALLOCATION)) {
+                return metric.getValue().getAsJsonObject().get("score").getAsDouble();
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, JsonObject> read(File file) throws IOException {
+        Map<String, JsonObject> results = new LinkedHashMap<String, JsonObject>();
+        Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+        try {
+            for (JsonElement element : new JsonParser().parse(reader).getAsJsonArray()) {
+                JsonObject result = element.getAsJsonObject();
+                results.put(key(result), result);
+            }
+        } finally {
+            reader.close();
+        }
+        return results;
+    }
+
+    private static String key(JsonObject result) {
+        StringBuilder key = new StringBuilder(result.get("benchmark").getAsString());
+        JsonObject params = result.getAsJsonObject("params");
+        if (params != null) {
+            for (Map.Entry<String, JsonElement> param : params.entrySet()) {
+                key.append(' ').append(param.getKey()).append('=')
+                        .append(param.getValue().getAsString());
+            }
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpStatus;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import de.devbliss.apitester.ApiTest;
+import de.devbliss.apitester.ApiTest.HTTP_REQUEST;
+import de.devbliss.apitester.ApiTestUtil;
+import de.devbliss.apitester.ConnectionPoolConfig;
+import de.devbliss.apitester.LoadConfig;
+import de.devbliss.apitester.LoadRunner;
+import de.devbliss.apitester.LoadRunner.Scenario;
+import de.devbliss.apitester.LoadSummary;
+import de.devbliss.apitester.dummyserver.DummyApiServer;
+import de.devbliss.apitester.dummyserver.DummyDto;
+import de.devbliss.apitester.dummyserver.DummyRequestHandler;
+
+/**
+ * Sends requests of each verb through {@link ApiTest} and a pooled HTTP client to a local
+ * {@link DummyApiServer}, for each combination of a few concurrency levels and payload sizes, and
+ * reports throughput, latency percentiles and the CPU time the client threads spent per request.
+ * The payload is a JSON array of {@link DummyDto}s, sent with POST, PUT, PATCH and DELETE and
+ * received with GET, POST, PUT and PATCH, see {@link DummyRequestHandler}. As the server runs in the
+ * same JVM, compare results only between runs on the same machine. Not a unit test, run it with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=de.devbliss.apitester.benchmark.EndToEndBenchmark \
+ *     -Dexec.args=target/end-to-end.json
+ * </pre>
+ *
+ * The results are also written as JSON to the file given as argument, by default
+ * {@value #DEFAULT_RESULT_FILE}.
+ *
+ * @author hschuetz
+ *
+ */
+public class EndToEndBenchmark {
+
+    static final String DEFAULT_RESULT_FILE = "target/end-to-end-benchmark.json";
+
+    private static final int[] CONCURRENCY = {1, 8, 32};
+    private static final int[] DTOS = {1, 100, 1000};
+    private static final long WARMUP_MILLIS = 1000;
+    private static final long DURATION_MILLIS = 3000;
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        File resultFile = new File(args.length > 0 ? args[0] : DEFAULT_RESULT_FILE);
+        DummyApiServer server = new DummyApiServer();
+        server.start(false);
+        LoadRunner runner = new LoadRunner(new ConnectionPoolConfig());
+        Results results = new Results();
+
+        try {
+            System.out.println("verb\tusers\tbytes\treq/s\tp50 ms\tp99 ms\tp99.9 ms\t"
+                    + "cpu us/req\terrors");
+            for (HTTP_REQUEST verb : new HTTP_REQUEST[] {HTTP_REQUEST.GET, HTTP_REQUEST.POST,
+                    HTTP_REQUEST.PUT, HTTP_REQUEST.PATCH, HTTP_REQUEST.DELETE}) {
+                for (int dtos : DTOS) {
+                    for (int users : CONCURRENCY) {
+                        Result result = run(runner, server, verb, users, dtos);
+                        System.out.println(result);
+                        results.results.add(result);
+                    }
+                }
+            }
+        } finally {
+            runner.shutdown();
+            server.stop();
+        }
+
+        write(results, resultFile);
+        System.out.println("results written to " + resultFile);
+    }
+
+    private static Result run(LoadRunner runner, DummyApiServer server, HTTP_REQUEST verb,
+            int users, int dtos) throws Exception {
+        List<DummyDto> payload = Collections.nCopies(dtos, DummyDto.createSampleInstance());
+        URI uri = verb == HTTP_REQUEST.GET ? server.buildGetRequestUri(HttpStatus.SC_OK, dtos)
+                : server.buildPostRequestUri(HttpStatus.SC_OK);
+        AtomicLong cpuNanos = new AtomicLong();
+
+        LoadConfig config = new LoadConfig();
+        config.setUsers(users);
+        config.setDurationMillis(WARMUP_MILLIS);
+        runner.run(config, createScenario(verb, uri, payload, new AtomicLong()));
+        config.setDurationMillis(DURATION_MILLIS);
+        LoadSummary summary = runner.run(config, createScenario(verb, uri, payload, cpuNanos));
+
+        Result result = new Result();
+        result.verb = verb.name();
+        result.users = users;
+        result.dtos = dtos;
+        result.payloadBytes = new Gson().toJson(payload).getBytes("UTF-8").length;
+        result.requests = summary.getIterations();
+        result.errors = summary.getErrors();
+        result.throughput = summary.getThroughput();
+        result.p50Millis = summary.getLatencyNanos(50) / NANOS_PER_MILLI;
+        result.p99Millis = summary.getLatencyNanos(99) / NANOS_PER_MILLI;
+        result.p999Millis = summary.getLatencyNanos(99.9) / NANOS_PER_MILLI;
+        result.cpuMicrosPerRequest = summary.getIterations() == 0 ? 0
+                : cpuNanos.get() / 1000.0 / summary.getIterations();
+        return result;
+    }
+
+    private static Scenario createScenario(final HTTP_REQUEST verb, final URI uri,
+            final List<DummyDto> payload, final AtomicLong cpuNanos) {
+        return new Scenario() {
+            public void run(ApiTest apiTest) throws Exception {
+                // the threads of a user only send, so their CPU time is that of the client
+                long cpuStart = THREADS.getCurrentThreadCpuTime();
+                try {
+                    switch (verb) {
+                        case GET:
+                            ApiTestUtil.assertOk(apiTest.get(uri).apiResponse);
+                            break;
+                        case POST:
+                            ApiTestUtil.assertOk(apiTest.post(uri, payload).apiResponse);
+                            break;
+                        case PUT:
+                            ApiTestUtil.assertOk(apiTest.put(uri, payload).apiResponse);
+                            break;
+                        case PATCH:
+                            ApiTestUtil.assertOk(apiTest.patch(uri, payload).apiResponse);
+                            break;
+                        case DELETE:
+                            ApiTestUtil.assertOk(apiTest.delete(uri, payload).apiResponse);
+                            break;
+                    }
+                } finally {
+                    cpuNanos.addAndGet(THREADS.getCurrentThreadCpuTime() - cpuStart);
+                }
+            }
+        };
+    }
+
+    private static void write(Results results, File file) throws Exception {
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            new GsonBuilder().setPrettyPrinting().create().toJson(results, writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Everything written to the result file, with what is needed to tell runs apart.
+     */
+    static class Results {
+
+        final String javaVersion = System.getProperty("java.version");
+        final String vmName = System.getProperty("java.vm.name");
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final long timestamp = System.currentTimeMillis();
+        final long durationMillis = DURATION_MILLIS;
+        final List<Result> results = new ArrayList<Result>();
+    }
+
+    /**
+     * One combination of verb, concurrency and payload size.
+     */
+    static class Result {
+
+        String verb;
+        int users;
+        int dtos;
+        int payloadBytes;
+        long requests;
+        long errors;
+        double throughput;
+        double p50Millis;
+        double p99Millis;
+        double p999Millis;
+        double cpuMicrosPerRequest;
+
+        @Override
+        public String toString() {
+            return String.format("%s\t%d\t%d\t%.0f\t%.3f\t%.3f\t%.3f\t%.1f\t%d", verb, users,
+                    payloadBytes, throughput, p50Millis, p99Millis, p999Millis,
+                    cpuMicrosPerRequest, errors);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPatch;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.cookie.BasicClientCookie;
+import org.apache.http.message.BasicHttpResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.gson.Gson;
+
+import de.devbliss.apitester.ApiRequest;
+import de.devbliss.apitester.ApiResponse;
+import de.devbliss.apitester.ApiTestUtil;
+import de.devbliss.apitester.Cookie;
+import de.devbliss.apitester.CopyOnWriteCookieStore;
+import de.devbliss.apitester.TestState;
+import de.devbliss.apitester.dummyserver.DummyDto;
+import de.devbliss.apitester.factory.impl.DefaultDeleteFactory;
+import de.devbliss.apitester.factory.impl.DefaultGetFactory;
+import de.devbliss.apitester.factory.impl.DefaultPatchFactory;
+import de.devbliss.apitester.factory.impl.DefaultPostFactory;
+import de.devbliss.apitester.factory.impl.DefaultPutFactory;
+import de.devbliss.apitester.factory.impl.EntityBuilder;
+import de.devbliss.apitester.transport.impl.InMemoryTransport;
+
+/**
+ * Measures the steps every request goes through on the client side, without any I/O: building the
+ * request and its entity, capturing it as {@link ApiRequest}, converting the response to an
+ * {@link ApiResponse}, reading the cookies and binding the payload. Run it with
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=HotPathBenchmark \
+ *     -Dbenchmark.args="-prof gc -rf json -rff target/hot-path.json"
+ * </pre>
+ *
+ * and compare the results to the baseline checked in as
+ * <code>src/test/benchmarks/HotPathBenchmark.json</code> with {@link BenchmarkComparison}. When a
+ * change makes the hot path faster or a slowdown is accepted, replace the baseline with the new
+ * results, run on the same machine as the old ones. Remove the <code>jvm</code> and
+ * <code>jvmArgs</code> fields from them first, they are local paths and settings that do not
+ * belong in the repository.
+ *
+ * @author hschuetz
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotPathBenchmark {
+
+    private static final int COOKIES = 5;
+
+    private URI uri;
+    private DummyDto payload;
+    private EntityBuilder entityBuilder;
+    private DefaultGetFactory getFactory;
+    private DefaultPostFactory postFactory;
+    private DefaultPutFactory putFactory;
+    private DefaultPatchFactory patchFactory;
+    private DefaultDeleteFactory deleteFactory;
+    private HttpUriRequest request;
+    private CopyOnWriteCookieStore cookieStore;
+    private TestState testState;
+    private HttpResponse httpResponse;
+    private ApiResponse apiResponse;
+
+    @Setup
+    public void setUp() throws Exception {
+        uri = new URI("http://localhost:8080/users/1?fields=name");
+        payload = DummyDto.createSampleInstance();
+        entityBuilder = new EntityBuilder();
+        getFactory = new DefaultGetFactory();
+        postFactory = new DefaultPostFactory(entityBuilder);
+        putFactory = new DefaultPutFactory(entityBuilder);
+        patchFactory = new DefaultPatchFactory(entityBuilder);
+        deleteFactory = new DefaultDeleteFactory(entityBuilder);
+
+        HttpPost post = new HttpPost(uri);
+        post.addHeader("Accept", "application/json");
+        post.addHeader("Authorization", "Bearer 0123456789abcdef");
+        post.addHeader("X-Request-Id", "42");
+        post.setEntity(new StringEntity("{}", ContentType.APPLICATION_JSON));
+        request = post;
+
+        cookieStore = new CopyOnWriteCookieStore();
+        for (int i = 0; i < COOKIES; i++) {
+            BasicClientCookie cookie = new BasicClientCookie("cookie" + i, "value" + i);
+            cookie.setDomain("localhost");
+            cookie.setPath("/");
+            cookieStore.addCookie(cookie);
+        }
+        testState = new TestState(new InMemoryTransport(), cookieStore);
+
+        // a byte array entity can be read again and again, so one response serves all operations
+        httpResponse = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+        httpResponse.addHeader("Content-Type", "application/json; charset=UTF-8");
+        httpResponse.addHeader("Cache-Control", "no-cache");
+        httpResponse.addHeader("Set-Cookie", "session=abc; Path=/");
+        httpResponse.setEntity(new ByteArrayEntity(new Gson().toJson(payload).getBytes("UTF-8"),
+                ContentType.APPLICATION_JSON));
+        apiResponse = ApiTestUtil.convertToApiResponse(httpResponse);
+    }
+
+    @Benchmark
+    public long buildEntity() throws IOException {
+        return entityBuilder.buildEntity(payload).getContentLength();
+    }
+
+    @Benchmark
+    public HttpGet createGetRequest() throws IOException {
+        return getFactory.createGetRequest(uri);
+    }
+
+    // post, put and patch serialize the payload once to compute its length, see EntityBuilder
+    @Benchmark
+    public HttpPost createPostRequest() throws IOException {
+        return postFactory.createPostRequest(uri, payload);
+    }
+
+    @Benchmark
+    public HttpPut createPutRequest() throws IOException {
+        return putFactory.createPutRequest(uri, payload);
+    }
+
+    @Benchmark
+    public HttpPatch createPatchRequest() throws IOException {
+        return patchFactory.createPatchRequest(uri, payload);
+    }
+
+    @Benchmark
+    public HttpDelete createDeleteRequest() throws IOException {
+        return deleteFactory.createDeleteRequest(uri);
+    }
+
+    @Benchmark
+    public ApiRequest convertToApiRequest() {
+        return ApiTestUtil.convertToApiRequest(uri, request, cookieStore);
+    }
+
+    @Benchmark
+    public String convertToApiRequestAndReadHeaders() {
+        return ApiTestUtil.convertToApiRequest(uri, request, cookieStore).getHeader("accept");
+    }
+
+    @Benchmark
+    public ApiResponse convertToApiResponse() throws IOException {
+        return ApiTestUtil.convertToApiResponse(httpResponse);
+    }
+
+    @Benchmark
+    public void getCookies(Blackhole blackhole) {
+        List<Cookie> cookies = testState.getCookies();
+        // the list is a view, the cookies are only converted when read
+        for (Cookie cookie : cookies) {
+            blackhole.consume(cookie);
+        }
+    }
+
+    @Benchmark
+    public DummyDto payloadJsonAs() {
+        return apiResponse.payloadJsonAs(DummyDto.class);
+    }
+}
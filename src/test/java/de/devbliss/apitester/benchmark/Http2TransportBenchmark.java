@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.benchmark;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.http.HttpStatus;
+
+import de.devbliss.apitester.ApiTest;
+import de.devbliss.apitester.ApiTesterModule;
+import de.devbliss.apitester.ConnectionStats;
+import de.devbliss.apitester.TestState;
+import de.devbliss.apitester.dummyserver.DummyH2Server;
+import de.devbliss.apitester.transport.impl.Http2Transport;
+import de.devbliss.apitester.transport.impl.StreamStats;
+
+/**
+ * Compares the throughput of the default HTTP/1.1 transport with {@link Http2Transport} for an
+ * increasing number of threads sharing one state, each server speaking only the protocol under
+ * test. Also reports how many connections each of them needed. Not a unit test, run it with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=de.devbliss.apitester.benchmark.Http2TransportBenchmark
+ * </pre>
+ *
+ * @author hschuetz
+ *
+ */
+public class Http2TransportBenchmark {
+
+    private static final int REQUESTS_PER_THREAD = 500;
+    private static final int[] THREADS = {1, 4, 16, 64};
+
+    public static void main(String[] args) throws Exception {
+        DummyH2Server http1Server = new DummyH2Server();
+        http1Server.start(false);
+        DummyH2Server http2Server = new DummyH2Server();
+        http2Server.start(true);
+        Http2Transport http2Transport = new Http2Transport(2);
+
+        try {
+            URI http1Uri = http1Server.buildGetRequestUri(HttpStatus.SC_OK);
+            URI http2Uri = http2Server.buildGetRequestUri(HttpStatus.SC_OK);
+            TestState http1State = ApiTesterModule.createSharedTestState();
+            TestState http2State = ApiTesterModule.createTestState(http2Transport);
+            ConnectionStats http1Stats = ApiTesterModule.getSharedConnectionStats();
+            StreamStats http2Stats = http2Transport.getStats();
+
+            // warm up
+            run(http1State, http1Uri, 4);
+            run(http2State, http2Uri, 4);
+
+            System.out.println("protocol\tthreads\treq/s\tconnections");
+            for (int threads : THREADS) {
+                long connections = http1Stats.getConnectionsOpened();
+                long requestsPerSecond = run(http1State, http1Uri, threads);
+                System.out.println("HTTP/1.1\t" + threads + "\t" + requestsPerSecond + "\t"
+                        + (http1Stats.getConnectionsOpened() - connections));
+
+                connections = http2Stats.getConnectionsOpened();
+                requestsPerSecond = run(http2State, http2Uri, threads);
+                System.out.println("HTTP/2\t" + threads + "\t" + requestsPerSecond + "\t"
+                        + (http2Stats.getConnectionsOpened() - connections));
+            }
+            System.out.println(http2Stats);
+        } finally {
+            http2Transport.shutdown();
+            http1Server.stop();
+            http2Server.stop();
+        }
+    }
+
+    private static long run(TestState testState, final URI uri, int threads) throws Exception {
+        final ApiTest apiTest = new ApiTest();
+        apiTest.setTestState(testState);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Void>> results = new ArrayList<Future<Void>>();
+
+        try {
+            long start = System.nanoTime();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        for (int j = 0; j < REQUESTS_PER_THREAD; j++) {
+                            apiTest.get(uri);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+            long millis = Math.max(1, (System.nanoTime() - start) / 1000000);
+            return threads * REQUESTS_PER_THREAD * 1000L / millis;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Consts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+
+import de.devbliss.apitester.ApiResponse;
+import de.devbliss.apitester.ApiTesterModule;
+import de.devbliss.apitester.dummyserver.DummyDto;
+import de.devbliss.apitester.json.JsonCodec;
+
+/**
+ * Compares the cost of converting a small DTO from and to JSON with a new {@link Gson} per call,
+ * as {@link ApiResponse#payloadJsonAs(Class)} used to do, with the shared {@link JsonCodec}. Run it
+ * with
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=JsonCodecBenchmark
+ * </pre>
+ *
+ * @author hschuetz
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+    private DummyDto dto;
+    private String json;
+    private JsonCodec codec;
+    private ApiResponse response;
+
+    @Setup
+    public void setUp() {
+        dto = DummyDto.createSampleInstance();
+        json = new Gson().toJson(dto);
+        codec = ApiTesterModule.getJsonCodec();
+        response = new ApiResponse(200, "OK", json.getBytes(Consts.UTF_8), Consts.UTF_8,
+                ImmutableMap.<String, String> of());
+    }
+
+    @Benchmark
+    public DummyDto fromJsonNewGson() {
+        return new Gson().fromJson(json, DummyDto.class);
+    }
+
+    @Benchmark
+    public DummyDto fromJsonSharedCodec() {
+        return codec.fromJson(json, DummyDto.class);
+    }
+
+    @Benchmark
+    public DummyDto payloadJsonAs() {
+        return response.payloadJsonAs(DummyDto.class);
+    }
+
+    @Benchmark
+    public String toJsonNewGson() {
+        return new Gson().toJson(dto);
+    }
+
+    @Benchmark
+    public String toJsonSharedCodec() {
+        return codec.toJson(dto);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Consts;
+import org.codehaus.jackson.type.TypeReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+import de.devbliss.apitester.ApiResponse;
+import de.devbliss.apitester.dummyserver.DummyDto;
+import de.devbliss.apitester.json.JsonPath;
+
+/**
+ * Compares reading a few values of a large JSON response by binding the whole payload with
+ * {@link ApiResponse#payloadJsonAs(TypeReference)} to selecting them with a {@link JsonPath}. Run
+ * it with
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=JsonPathBenchmark -Dbenchmark.args="-prof gc"
+ * </pre>
+ *
+ * @author hschuetz
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonPathBenchmark {
+
+    private static final int DTOS = 10000;
+
+    private ApiResponse response;
+
+    @Setup
+    public void setUp() {
+        List<DummyDto> dtos = new ArrayList<DummyDto>();
+        for (int i = 0; i < DTOS; i++) {
+            dtos.add(new DummyDto("value " + i, i, i % 2 == 0));
+        }
+        response = new ApiResponse(200, "OK", new Gson().toJson(dtos).getBytes(Consts.UTF_8),
+                Consts.UTF_8, ImmutableMap.<String, String> of());
+    }
+
+    @Benchmark
+    public int firstValueBindingAll() {
+        return response.payloadJsonAs(new TypeReference<List<DummyDto>>() {}).get(0)
+                .getSomeIntValue();
+    }
+
+    @Benchmark
+    public int firstValueByPath() {
+        return response.payloadJsonPath("$[0].someIntValue").getAsInt();
+    }
+
+    @Benchmark
+    public int allValuesBindingAll() {
+        int sum = 0;
+        for (DummyDto dto : response.payloadJsonAs(new TypeReference<List<DummyDto>>() {})) {
+            sum += dto.getSomeIntValue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int allValuesByPath() {
+        int sum = 0;
+        for (JsonElement value : response.payloadJsonPathAll("$[*].someIntValue")) {
+            sum += value.getAsInt();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHttpResponse;
+import org.codehaus.jackson.type.TypeReference;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.sun.management.ThreadMXBean;
+
+import de.devbliss.apitester.ApiResponse;
+import de.devbliss.apitester.ApiTestUtil;
+import de.devbliss.apitester.ResponseMode;
+import de.devbliss.apitester.dummyserver.DummyDto;
+
+/**
+ * Measures the bytes allocated per response when converting a large JSON body to an
+ * {@link ApiResponse}, comparing the former eager conversion to a string with the byte backed
+ * payload, once checking only the status and once parsing the JSON, as well as with
+ * {@link ResponseMode#DISCARD_BODY}. Not a unit test, run it with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=de.devbliss.apitester.benchmark.PayloadAllocationBenchmark
+ * </pre>
+ *
+ * @author hschuetz
+ *
+ */
+public class PayloadAllocationBenchmark {
+
+    private static final int DTOS = 10000;
+    private static final int WARMUP_RESPONSES = 200;
+    private static final int RESPONSES = 200;
+
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private interface Conversion {
+        void convert(HttpResponse response) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<DummyDto> dtos = new ArrayList<DummyDto>();
+        for (int i = 0; i < DTOS; i++) {
+            dtos.add(new DummyDto("value \u00e4\u00f6\u00fc " + i, i, i % 2 == 0));
+        }
+        final Gson gson = new Gson();
+        final byte[] body = gson.toJson(dtos).getBytes("UTF-8");
+        final List<DummyDto> expected = dtos;
+
+        System.out.println("body: " + body.length + " bytes");
+        System.out.println("conversion\tbytes/response");
+
+        run("eager status only", body, new Conversion() {
+            public void convert(HttpResponse response) throws Exception {
+                String payload = IOUtils.toString(response.getEntity().getContent(), "UTF-8");
+                check(payload.length() > 0);
+            }
+        });
+        run("lazy status only", body, new Conversion() {
+            public void convert(HttpResponse response) throws Exception {
+                check(ApiTestUtil.convertToApiResponse(response).isStatusOk());
+            }
+        });
+        run("discarded body", body, new Conversion() {
+            public void convert(HttpResponse response) throws Exception {
+                check(ApiTestUtil.convertToApiResponse(response, ResponseMode.DISCARD_BODY)
+                        .isStatusOk());
+            }
+        });
+        run("eager json", body, new Conversion() {
+            public void convert(HttpResponse response) throws Exception {
+                String payload = IOUtils.toString(response.getEntity().getContent(), "UTF-8");
+                List<DummyDto> parsed =
+                        gson.fromJson(payload, new TypeToken<List<DummyDto>>() {}.getType());
+                check(parsed.equals(expected));
+            }
+        });
+        run("lazy json", body, new Conversion() {
+            public void convert(HttpResponse response) throws Exception {
+                List<DummyDto> parsed = ApiTestUtil.convertToApiResponse(response)
+                        .payloadJsonAs(new TypeReference<List<DummyDto>>() {});
+                check(parsed.equals(expected));
+            }
+        });
+    }
+
+    private static void run(String name, byte[] body, Conversion conversion) throws Exception {
+        for (int i = 0; i < WARMUP_RESPONSES; i++) {
+            conversion.convert(createResponse(body));
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long allocated = 0;
+        for (int i = 0; i < RESPONSES; i++) {
+            // the response itself is not part of the measurement
+            HttpResponse response = createResponse(body);
+            long before = THREADS.getThreadAllocatedBytes(threadId);
+            conversion.convert(response);
+            allocated += THREADS.getThreadAllocatedBytes(threadId) - before;
+        }
+        System.out.println(name + "\t" + allocated / RESPONSES);
+    }
+
+    private static HttpResponse createResponse(byte[] body) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+        response.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
+        return response;
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("unexpected result");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.benchmark;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.http.HttpStatus;
+
+import de.devbliss.apitester.ApiTesterModule;
+import de.devbliss.apitester.ConnectionPoolConfig;
+import de.devbliss.apitester.Getter;
+import de.devbliss.apitester.TestState;
+import de.devbliss.apitester.dummyserver.DummyApiServer;
+
+/**
+ * Measures GET requests per second against a local {@link DummyApiServer} with one pooled
+ * {@link TestState} shared by an increasing number of threads. Not a unit test, run it with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=de.devbliss.apitester.benchmark.PooledTestStateBenchmark
+ * </pre>
+ *
+ * @author hschuetz
+ *
+ */
+public class PooledTestStateBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32};
+    private static final long WARMUP_MILLIS = 2000;
+    private static final long MEASURE_MILLIS = 5000;
+
+    public static void main(String[] args) throws Exception {
+        DummyApiServer server = new DummyApiServer();
+        server.start(false);
+        try {
+            URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+            System.out.println("threads\treq/s");
+            for (int threads : THREAD_COUNTS) {
+                ConnectionPoolConfig config = new ConnectionPoolConfig();
+                config.setMaxPerRoute(threads);
+                TestState testState = ApiTesterModule.createPooledTestState(config);
+                try {
+                    run(uri, testState, threads, WARMUP_MILLIS);
+                    long requests = run(uri, testState, threads, MEASURE_MILLIS);
+                    System.out.println(threads + "\t" + (requests * 1000 / MEASURE_MILLIS));
+                } finally {
+                    testState.shutdown();
+                }
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static long run(final URI uri, final TestState testState, int threads,
+            long durationMillis) throws Exception {
+        final long end = System.currentTimeMillis() + durationMillis;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Long>> results = new ArrayList<Future<Long>>();
+
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(new Callable<Long>() {
+                public Long call() throws Exception {
+                    long requests = 0;
+                    while (System.currentTimeMillis() < end) {
+                        Getter.get(uri, testState);
+                        requests++;
+                    }
+                    return requests;
+                }
+            }));
+        }
+
+        long total = 0;
+        for (Future<Long> result : results) {
+            total += result.get();
+        }
+        executor.shutdown();
+        return total;
+    }
+}
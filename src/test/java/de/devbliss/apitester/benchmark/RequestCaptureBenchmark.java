@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.benchmark;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.impl.cookie.BasicClientCookie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.devbliss.apitester.ApiRequest;
+import de.devbliss.apitester.ApiTestUtil;
+import de.devbliss.apitester.CopyOnWriteCookieStore;
+import de.devbliss.apitester.TestState;
+import de.devbliss.apitester.transport.impl.InMemoryTransport;
+
+/**
+ * Compares the cost of capturing the {@link ApiRequest} before sending a request, once converting
+ * headers and cookies right away as the verbs used to, once keeping them as they are until read.
+ * Run it with
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=RequestCaptureBenchmark
+ * </pre>
+ *
+ * @author hschuetz
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestCaptureBenchmark {
+
+    @Param({"2", "20"})
+    private int cookies;
+
+    private URI uri;
+    private HttpGet request;
+    private TestState eagerState;
+    private CookieStore copyOnWriteStore;
+
+    @Setup
+    public void setUp() throws Exception {
+        uri = new URI("http://localhost:8080/users/1?fields=name");
+        request = new HttpGet(uri);
+        request.addHeader("Accept", "application/json");
+        request.addHeader("Authorization", "Bearer 0123456789abcdef");
+        request.addHeader("X-Request-Id", "42");
+
+        BasicCookieStore basicStore = new BasicCookieStore();
+        copyOnWriteStore = new CopyOnWriteCookieStore();
+        for (int i = 0; i < cookies; i++) {
+            BasicClientCookie cookie = new BasicClientCookie("cookie" + i, "value" + i);
+            cookie.setDomain("localhost");
+            cookie.setPath("/");
+            basicStore.addCookie(cookie);
+            copyOnWriteStore.addCookie(cookie);
+        }
+        eagerState = new TestState(new InMemoryTransport(), basicStore);
+    }
+
+    @Benchmark
+    public ApiRequest eager() {
+        return ApiTestUtil.convertToApiRequest(uri, request, eagerState.getCookies());
+    }
+
+    @Benchmark
+    public ApiRequest lazy() {
+        return ApiTestUtil.convertToApiRequest(uri, request, copyOnWriteStore);
+    }
+
+    @Benchmark
+    public String lazyRead() {
+        return ApiTestUtil.convertToApiRequest(uri, request, copyOnWriteStore).getCookie("cookie1");
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpStatus;
+
+import de.devbliss.apitester.ApiTest;
+import de.devbliss.apitester.ConnectionPoolConfig;
+import de.devbliss.apitester.SessionRunner;
+import de.devbliss.apitester.SessionRunner.Session;
+import de.devbliss.apitester.SessionRunner.ThreadMode;
+import de.devbliss.apitester.dummyserver.DummyApiServer;
+
+/**
+ * Compares {@link SessionRunner} on platform threads with virtual threads: thousands of sessions,
+ * each making a few GET requests against a local {@link DummyApiServer}. Reports throughput, the
+ * peak number of JVM threads and the peak heap used per session. Platform threads additionally
+ * reserve native memory for their stacks, which is not part of the heap figure.
+ *
+ * The virtual thread run needs a Java 21 runtime while the project is compiled with Java 6
+ * settings, so compile first and then run with the newer JVM, e.g.:
+ *
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=/path/to/jdk21/bin/java \
+ *     -Dexec.args="--add-opens java.base/java.lang=ALL-UNNAMED -Djdk.tracePinnedThreads=full \
+ *     -classpath %classpath de.devbliss.apitester.benchmark.SessionRunnerBenchmark"
+ * </pre>
+ *
+ * With <code>-Djdk.tracePinnedThreads=full</code>, the JVM prints a stack trace whenever a virtual
+ * thread blocks while pinned to its carrier, so a clean output proves the request path is free of
+ * pinning.
+ *
+ * @author hschuetz
+ *
+ */
+public class SessionRunnerBenchmark {
+
+    private static final int SESSIONS = 2000;
+    private static final int REQUESTS_PER_SESSION = 10;
+    private static final int POOL_SIZE = 100;
+
+    public static void main(String[] args) throws Exception {
+        DummyApiServer server = new DummyApiServer();
+        server.start(false);
+
+        try {
+            URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+            System.out.println("mode\tsessions\treq/s\tpeak threads\theap bytes/session");
+            run(ThreadMode.PLATFORM, uri);
+            if (SessionRunner.isVirtualThreadSupported()) {
+                run(ThreadMode.VIRTUAL, uri);
+            } else {
+                System.out.println("VIRTUAL\tskipped, needs Java 21 or newer");
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static void run(ThreadMode mode, final URI uri) throws Exception {
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setMaxPerRoute(POOL_SIZE);
+        config.setMaxTotal(POOL_SIZE);
+        SessionRunner runner = new SessionRunner(mode, config);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+        final AtomicLong peakHeap = new AtomicLong(heapBefore);
+
+        try {
+            long start = System.nanoTime();
+            List<Throwable> failures = runner.run(SESSIONS, new Session() {
+                public void run(ApiTest apiTest) throws Exception {
+                    for (int i = 0; i < REQUESTS_PER_SESSION; i++) {
+                        apiTest.get(uri);
+                        recordHeap(peakHeap);
+                    }
+                }
+            });
+            long millis = Math.max(1, (System.nanoTime() - start) / 1000000);
+
+            if (!failures.isEmpty()) {
+                throw new IllegalStateException(failures.size() + " sessions failed",
+                        failures.get(0));
+            }
+            System.out.println(mode + "\t" + SESSIONS + "\t"
+                    + (SESSIONS * REQUESTS_PER_SESSION * 1000L / millis) + "\t"
+                    + ManagementFactory.getThreadMXBean().getPeakThreadCount() + "\t"
+                    + (peakHeap.get() - heapBefore) / SESSIONS);
+        } finally {
+            runner.shutdown();
+        }
+    }
+
+    private static void recordHeap(AtomicLong peakHeap) {
+        long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long peak = peakHeap.get();
+        while (used > peak && !peakHeap.compareAndSet(peak, used)) {
+            peak = peakHeap.get();
+        }
+    }
+}
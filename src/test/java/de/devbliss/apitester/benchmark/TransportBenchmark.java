@@ -0,0 +1,111 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestHandler;
+
+import com.google.gson.Gson;
+
+import de.devbliss.apitester.ApiTest;
+import de.devbliss.apitester.ApiTesterModule;
+import de.devbliss.apitester.ConnectionPoolConfig;
+import de.devbliss.apitester.dummyserver.DummyApiServer;
+import de.devbliss.apitester.dummyserver.DummyDto;
+import de.devbliss.apitester.transport.Transport;
+import de.devbliss.apitester.transport.impl.InMemoryTransport;
+import de.devbliss.apitester.transport.impl.JdkHttpClientTransport;
+
+/**
+ * Sends the same GET requests from one thread with each {@link Transport} and reports the
+ * throughput, against a local {@link DummyApiServer} or, for the in-memory transport, against a
+ * handler returning the same payload. The in-process run calls the Jetty handler of the server
+ * directly, see {@link DummyApiServer#createInProcessTransport()}. Not a unit test, run it with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=de.devbliss.apitester.benchmark.TransportBenchmark
+ * </pre>
+ *
+ * The JDK client is only measured on Java 11 or newer.
+ *
+ * @author hschuetz
+ *
+ */
+public class TransportBenchmark {
+
+    private static final int WARMUP_REQUESTS = 2000;
+    private static final int REQUESTS = 10000;
+
+    public static void main(String[] args) throws Exception {
+        DummyApiServer server = new DummyApiServer();
+        server.start(false);
+
+        try {
+            URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+            System.out.println("transport\trequests\tmillis\treq/s");
+            run("httpclient", ApiTesterModule.createPooledTestState(new ConnectionPoolConfig())
+                    .transport, uri);
+            if (JdkHttpClientTransport.isSupported()) {
+                run("jdk", new JdkHttpClientTransport(), uri);
+            } else {
+                System.out.println("jdk\tskipped, needs Java 11 or newer");
+            }
+            run("in-memory", createInMemoryTransport(), uri);
+            run("in-process", server.createInProcessTransport(), uri);
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static void run(String name, Transport transport, URI uri) throws Exception {
+        ApiTest apiTest = new ApiTest();
+        apiTest.setTestState(ApiTesterModule.createTestState(transport));
+
+        try {
+            for (int i = 0; i < WARMUP_REQUESTS; i++) {
+                apiTest.get(uri);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                apiTest.get(uri);
+            }
+            long millis = Math.max(1, (System.nanoTime() - start) / 1000000);
+            System.out.println(name + "\t" + REQUESTS + "\t" + millis + "\t"
+                    + (REQUESTS * 1000L / millis));
+        } finally {
+            apiTest.shutdown();
+        }
+    }
+
+    private static Transport createInMemoryTransport() {
+        final String payload = new Gson().toJson(DummyDto.createSampleInstance());
+        return new InMemoryTransport(new HttpRequestHandler() {
+            public void handle(HttpRequest request, HttpResponse response, HttpContext context)
+                    throws HttpException, IOException {
+                response.setEntity(new StringEntity(payload, ContentType.APPLICATION_JSON));
+            }
+        });
+    }
+}
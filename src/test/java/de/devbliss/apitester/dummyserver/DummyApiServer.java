@@ -21,6 +21,12 @@ import java.net.URISyntaxException;
 
 import org.apache.http.client.utils.URIBuilder;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+
+import de.devbliss.apitester.ApiTesterModule;
+import de.devbliss.apitester.TestState;
+import de.devbliss.apitester.transport.Transport;
+import de.devbliss.apitester.transport.impl.InMemoryTransport;
 
 /**
  * Simple HTTP server using Jetty. Tries to find a free port on instanciation and is ready for
@@ -33,6 +39,10 @@ import org.eclipse.jetty.server.Server;
  * 
  * Don't forget to call {@link #stop()} after finishing your tests to free the port again.
  * 
+ * The same handlers can also be called without any network I/O at all, by states created with
+ * {@link #createInProcessTestState()}. Use {@link #startInProcess(boolean)} instead of
+ * {@link #start(boolean)} if no test needs a real server.
+ * 
  * @author hschuetz
  * 
  */
@@ -42,6 +52,7 @@ public class DummyApiServer {
     private static final int MAX_PORT = 10000;
     private final int port;
     private Server server;
+    private AbstractHandler handler;
     private final DelegateHandler delegateHandler = new DelegateHandler();
 
     public DummyApiServer() {
@@ -49,12 +60,9 @@ public class DummyApiServer {
     }
 
     public void start(boolean mocked) throws Exception {
+        startInProcess(mocked);
         server = new Server(port);
-        if (mocked) {
-            server.setHandler(delegateHandler);
-        } else {
-            server.setHandler(new DummyRequestHandler());
-        }
+        server.setHandler(handler);
         server.start();
 
         new Thread(new Runnable() {
@@ -69,8 +77,37 @@ public class DummyApiServer {
         }).start();
     }
 
+    /**
+     * Prepares the handlers for {@link #createInProcessTestState()} without starting Jetty.
+     *
+     * @param mocked
+     */
+    public void startInProcess(boolean mocked) {
+        if (mocked) {
+            handler = delegateHandler;
+        } else {
+            handler = new DummyRequestHandler();
+        }
+    }
+
     public void stop() throws Exception {
-        server.stop();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    /**
+     * Creates a state whose requests are passed directly to the handlers of this server, within
+     * the same thread and without any network I/O.
+     *
+     * @return
+     */
+    public TestState createInProcessTestState() {
+        return ApiTesterModule.createTestState(createInProcessTransport());
+    }
+
+    public Transport createInProcessTransport() {
+        return new InMemoryTransport(new InProcessHandler(handler));
     }
 
     public void setHandler(Handler handler) {
@@ -88,6 +125,20 @@ public class DummyApiServer {
         return buildRequestUri(DummyRequestHandler.GET_PATH_PREFIX + desiredResponseCode);
     }
 
+    /**
+     * Builds an URI for GET requests whose response lists the given number of dtos, see
+     * {@link DummyRequestHandler} for details.
+     * 
+     * @param desiredResponseCode
+     * @param dtos
+     * @return
+     * @throws URISyntaxException
+     */
+    public URI buildGetRequestUri(int desiredResponseCode, int dtos) throws URISyntaxException {
+        return new URIBuilder(buildGetRequestUri(desiredResponseCode))
+                .addParameter(DummyRequestHandler.DTOS_PARAMETER, String.valueOf(dtos)).build();
+    }
+
     /**
      * Builds an URI for POST requests, see {@link DummyRequestHandler} for details.
      * 
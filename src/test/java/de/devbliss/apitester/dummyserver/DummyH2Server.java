@@ -0,0 +1,132 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.dummyserver;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+
+import com.google.gson.Gson;
+
+/**
+ * Counterpart of {@link DummyApiServer} speaking h2c (HTTP/2 without TLS, with prior knowledge),
+ * since Jetty 8 knows nothing about HTTP/2. For comparisons, it can also be started speaking
+ * HTTP/1.1 instead, serving the very same responses. It supports the
+ * same GET and POST paths as {@link DummyRequestHandler}. In addition, the path
+ * {@link #COOKIE_PATH} sets a cookie if the request has none and returns the cookies of the
+ * request as payload otherwise.
+ *
+ * @author hschuetz
+ *
+ */
+public class DummyH2Server {
+
+    public static final String COOKIE_PATH = "/cookie";
+    public static final String COOKIE = "batman=robin";
+
+    private final Gson gson = new Gson();
+    private HttpAsyncServer server;
+    private int port;
+
+    /**
+     * @param http2 true for h2c, false for HTTP/1.1
+     * @throws Exception
+     */
+    public void start(boolean http2) throws Exception {
+        server = H2ServerBootstrap.bootstrap()
+                .setVersionPolicy(http2 ? HttpVersionPolicy.FORCE_HTTP_2
+                        : HttpVersionPolicy.FORCE_HTTP_1)
+                .register("*", new AsyncServerRequestHandler<Message<HttpRequest, String>>() {
+                    public AsyncRequestConsumer<Message<HttpRequest, String>> prepare(
+                            HttpRequest request, EntityDetails entityDetails, HttpContext context)
+                            throws HttpException {
+                        return new BasicRequestConsumer<String>(new StringAsyncEntityConsumer());
+                    }
+
+                    public void handle(Message<HttpRequest, String> message,
+                            ResponseTrigger responseTrigger, HttpContext context)
+                            throws HttpException, IOException {
+                        responseTrigger.submitResponse(respond(message).build(), context);
+                    }
+                })
+                .create();
+        server.start();
+        ListenerEndpoint endpoint =
+                server.listen(new InetSocketAddress("localhost", 0), URIScheme.HTTP).get();
+        port = ((InetSocketAddress) endpoint.getAddress()).getPort();
+    }
+
+    public void stop() {
+        server.close(CloseMode.IMMEDIATE);
+    }
+
+    public URI buildGetRequestUri(int desiredResponseCode) throws URISyntaxException {
+        return buildRequestUri(DummyRequestHandler.GET_PATH_PREFIX + desiredResponseCode);
+    }
+
+    public URI buildPostRequestUri(int desiredResponseCode) throws URISyntaxException {
+        return buildRequestUri(DummyRequestHandler.POST_PATH_PREFIX + desiredResponseCode);
+    }
+
+    public URI buildRequestUri(String pathOnServer) throws URISyntaxException {
+        return new URI("http", null, "localhost", port, pathOnServer, null, null);
+    }
+
+    private AsyncResponseBuilder respond(Message<HttpRequest, String> message) {
+        String path = message.getHead().getPath();
+
+        if (path.equals(COOKIE_PATH)) {
+            if (message.getHead().containsHeader(HttpHeaders.COOKIE)) {
+                return AsyncResponseBuilder.create(HttpStatus.SC_OK).setEntity(
+                        message.getHead().getFirstHeader(HttpHeaders.COOKIE).getValue(),
+                        ContentType.TEXT_PLAIN);
+            }
+            return AsyncResponseBuilder.create(HttpStatus.SC_OK).addHeader(HttpHeaders.SET_COOKIE,
+                    COOKIE + "; Path=/");
+        }
+
+        int desiredResponseCode = Integer.parseInt(path.substring(path.lastIndexOf('/') + 1));
+        AsyncResponseBuilder response = AsyncResponseBuilder.create(desiredResponseCode);
+
+        if (desiredResponseCode == HttpStatus.SC_OK) {
+            String payload = path.startsWith(DummyRequestHandler.GET_PATH_PREFIX)
+                    ? gson.toJson(DummyDto.createSampleInstance()) : message.getBody();
+            response.setEntity(payload, ContentType.APPLICATION_JSON);
+        }
+
+        return response;
+    }
+}
@@ -15,6 +15,7 @@
 package de.devbliss.apitester.dummyserver;
 
 import java.io.IOException;
+import java.util.Collections;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -35,7 +36,8 @@ import de.devbliss.apitester.ApiTest;
  * <li><strong>GET</strong>-requests: expects an int representing a desired HTTP response code to be
  * the last part of the path, e.g. http://localhost:3333/gettest/200 => sends a response with given
  * http response code and a JSON representation of the {@link DummyDto#createSampleInstance()}
- * instance in the response body if the desired response code is 200 OK</li>
+ * instance in the response body if the desired response code is 200 OK. With a query parameter
+ * <code>dtos=n</code>, the body is a JSON array of n such instances instead.</li>
  * <li><strong>POST</strong>-requests: same like GET, but simply returns the content of the request
  * body in case desired response code is 200 OK</li>
  * </ul>
@@ -47,6 +49,7 @@ import de.devbliss.apitester.ApiTest;
 public class DummyRequestHandler extends AbstractHandler {
     static final String GET_PATH_PREFIX = "/gettest/";
     static final String POST_PATH_PREFIX = "/posttest/";
+    static final String DTOS_PARAMETER = "dtos";
     private static final String CONTENT_TYPE = "application/json;charset=utf-8";
     private static final String CONTENT_TYPE_ERROR = "text/html;charset=utf-8";
     private final Gson gson = new Gson();
@@ -57,7 +60,7 @@ public class DummyRequestHandler extends AbstractHandler {
 
         switch (method) {
             case GET:
-                handleGet(target, response);
+                handleGet(target, request, response);
                 break;
             case POST:
             case PATCH:
@@ -69,7 +72,8 @@ public class DummyRequestHandler extends AbstractHandler {
         baseRequest.setHandled(true);
     }
 
-    private void handleGet(String path, HttpServletResponse response) throws IOException {
+    private void handleGet(String path, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
 
         try {
             int desiredResponseCode = parseDesiredResponseCode(path);
@@ -77,7 +81,14 @@ public class DummyRequestHandler extends AbstractHandler {
             response.setContentType(CONTENT_TYPE);
 
             if (desiredResponseCode == HttpServletResponse.SC_OK) {
-                response.getWriter().write(gson.toJson(DummyDto.createSampleInstance()));
+                String dtos = request.getParameter(DTOS_PARAMETER);
+                if (dtos == null) {
+                    response.getWriter().write(gson.toJson(DummyDto.createSampleInstance()));
+                } else {
+                    response.getWriter().write(gson.toJson(
+                            Collections.nCopies(Integer.parseInt(dtos),
+                                    DummyDto.createSampleInstance())));
+                }
             }
         } catch (Exception e) {
             handleException(e, response);
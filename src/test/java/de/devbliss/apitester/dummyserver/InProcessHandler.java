@@ -0,0 +1,182 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.dummyserver;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+
+import org.apache.http.Consts;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestHandler;
+import org.apache.http.util.EntityUtils;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Calls a Jetty {@link Handler}, e.g. {@link DummyRequestHandler} or {@link DelegateHandler},
+ * directly with mock servlet requests and responses, so it can be used with an
+ * {@link de.devbliss.apitester.transport.impl.InMemoryTransport}. Like Jetty, responds with 404 if
+ * the handler did not mark the request as handled and did not send an error either.
+ *
+ * @author hschuetz
+ *
+ */
+public class InProcessHandler implements HttpRequestHandler {
+
+    private final Handler handler;
+
+    public InProcessHandler(Handler handler) {
+        this.handler = handler;
+    }
+
+    public void handle(HttpRequest request, HttpResponse response, HttpContext context)
+            throws HttpException, IOException {
+        URI uri = ((HttpUriRequest) request).getURI();
+        MockHttpServletRequest servletRequest = createServletRequest(request, uri);
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        Request baseRequest = new Request();
+
+        try {
+            handler.handle(uri.getPath(), baseRequest, servletRequest, servletResponse);
+        } catch (ServletException e) {
+            throw new HttpException("Handler failed", e);
+        }
+
+        if (!baseRequest.isHandled() && !servletResponse.isCommitted()) {
+            response.setStatusCode(HttpStatus.SC_NOT_FOUND);
+            copyHeaders(servletResponse, response);
+            return;
+        }
+
+        int status = servletResponse.getStatus();
+        String reason = servletResponse.getErrorMessage() != null
+                ? servletResponse.getErrorMessage()
+                : EnglishReasonPhraseCatalog.INSTANCE.getReason(status, null);
+        response.setStatusLine(HttpVersion.HTTP_1_1, status, reason);
+        copyHeaders(servletResponse, response);
+
+        ByteArrayEntity entity = new ByteArrayEntity(servletResponse.getContentAsByteArray());
+        entity.setContentType(response.getFirstHeader(HttpHeaders.CONTENT_TYPE));
+        response.setEntity(entity);
+    }
+
+    private MockHttpServletRequest createServletRequest(HttpRequest request, URI uri)
+            throws IOException {
+        MockHttpServletRequest servletRequest =
+                new MockHttpServletRequest(request.getRequestLine().getMethod(), uri.getRawPath());
+        servletRequest.setScheme(uri.getScheme());
+        servletRequest.setServerName(uri.getHost());
+        servletRequest.setServerPort(uri.getPort());
+        servletRequest.setQueryString(uri.getRawQuery());
+
+        for (NameValuePair parameter : URLEncodedUtils.parse(uri, Consts.UTF_8)) {
+            servletRequest.addParameter(parameter.getName(), parameter.getValue());
+        }
+
+        List<Cookie> cookies = new ArrayList<Cookie>();
+
+        for (Header header : request.getAllHeaders()) {
+            servletRequest.addHeader(header.getName(), header.getValue());
+
+            if (header.getName().equalsIgnoreCase("Cookie")) {
+                for (String cookie : header.getValue().split(";")) {
+                    String[] nameAndValue = cookie.trim().split("=", 2);
+                    cookies.add(new Cookie(nameAndValue[0],
+                            nameAndValue.length > 1 ? nameAndValue[1] : ""));
+                }
+            }
+        }
+
+        if (!cookies.isEmpty()) {
+            servletRequest.setCookies(cookies.toArray(new Cookie[cookies.size()]));
+        }
+
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+
+            if (entity != null) {
+                ContentType contentType = ContentType.get(entity);
+                if (contentType != null) {
+                    servletRequest.setContentType(contentType.toString());
+                    if (contentType.getCharset() != null) {
+                        servletRequest.setCharacterEncoding(contentType.getCharset().name());
+                    }
+                }
+                servletRequest.setContent(EntityUtils.toByteArray(entity));
+            }
+        }
+
+        return servletRequest;
+    }
+
+    private void copyHeaders(MockHttpServletResponse servletResponse, HttpResponse response) {
+        for (String name : servletResponse.getHeaderNames()) {
+            for (String value : servletResponse.getHeaders(name)) {
+                response.addHeader(name, value);
+            }
+        }
+
+        if (!response.containsHeader(HttpHeaders.CONTENT_TYPE)
+                && servletResponse.getContentType() != null) {
+            response.addHeader(HttpHeaders.CONTENT_TYPE, servletResponse.getContentType());
+        }
+
+        if (!response.containsHeader("Set-Cookie")) {
+            for (Cookie cookie : servletResponse.getCookies()) {
+                response.addHeader("Set-Cookie", toSetCookieHeader(cookie));
+            }
+        }
+    }
+
+    private String toSetCookieHeader(Cookie cookie) {
+        StringBuilder header = new StringBuilder(cookie.getName()).append('=')
+                .append(cookie.getValue());
+        if (cookie.getPath() != null) {
+            header.append("; Path=").append(cookie.getPath());
+        }
+        if (cookie.getDomain() != null) {
+            header.append("; Domain=").append(cookie.getDomain());
+        }
+        if (cookie.getMaxAge() >= 0) {
+            header.append("; Max-Age=").append(cookie.getMaxAge());
+        }
+        if (cookie.getSecure()) {
+            header.append("; Secure");
+        }
+        return header.toString();
+    }
+}
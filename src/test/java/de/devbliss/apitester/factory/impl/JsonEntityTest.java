@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.factory.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpEntity;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+import de.devbliss.apitester.ApiTesterModule;
+import de.devbliss.apitester.dummyserver.DummyDto;
+
+/**
+ * Unit test for {@link JsonEntity}.
+ * 
+ * @author hschuetz
+ *
+ */
+public class JsonEntityTest {
+
+    private final DummyDto payload = new DummyDto("äöü", 1, true);
+    private final String json = new Gson().toJson(payload);
+
+    @Test
+    public void chunkedEntityWritesJson() throws Exception {
+        JsonEntity entity = new JsonEntity(payload, ApiTesterModule.getJsonCodec());
+        assertTrue(entity.isChunked());
+        assertTrue(entity.isRepeatable());
+        assertFalse(entity.isStreaming());
+        assertEquals(-1, entity.getContentLength());
+        assertEquals("application/json", entity.getContentType().getValue());
+        assertWritesJsonRepeatedly(entity);
+    }
+
+    @Test
+    public void knownLengthEntityWritesJson() throws Exception {
+        JsonEntity entity = new JsonEntity(payload, ApiTesterModule.getJsonCodec(), true);
+        assertFalse(entity.isChunked());
+        assertEquals(json.getBytes("UTF-8").length, entity.getContentLength());
+        assertWritesJsonRepeatedly(entity);
+    }
+
+    @Test
+    public void contentIsJson() throws Exception {
+        JsonEntity entity = new JsonEntity(payload, ApiTesterModule.getJsonCodec());
+        assertEquals(json, IOUtils.toString(entity.getContent(), "UTF-8"));
+    }
+
+    @Test
+    public void encodesAllCharactersAcrossBuffers() throws Exception {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < Utf8Writer.BUFFER_SIZE; i++) {
+            // one, two, three and four bytes in UTF-8
+            value.append("a\u00e4\u20ac\ud83d\ude00");
+        }
+        DummyDto large = new DummyDto(value.toString(), 1, true);
+        JsonEntity entity = new JsonEntity(large, ApiTesterModule.getJsonCodec(), true);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        byte[] expected = new Gson().toJson(large).getBytes("UTF-8");
+        assertEquals(expected.length, entity.getContentLength());
+        assertEquals(new String(expected, "UTF-8"), out.toString("UTF-8"));
+    }
+
+    @Test
+    public void unpairedSurrogatesReplaced() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Utf8Writer writer = new Utf8Writer(out);
+        writer.write("a\ude00b\ud83dc\ud83d");
+        writer.close();
+        assertEquals("a?b?c?", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void entityBuilderSendsLengthUnlessChunked() throws Exception {
+        HttpEntity entity = new EntityBuilder().buildStreamingEntity(payload);
+        assertFalse(entity.isChunked());
+        assertEquals(json.getBytes("UTF-8").length, entity.getContentLength());
+
+        HttpEntity chunked = new EntityBuilder(ApiTesterModule.getJsonCodec(), true)
+                .buildStreamingEntity(payload);
+        assertTrue(chunked.isChunked());
+        assertEquals(-1, chunked.getContentLength());
+    }
+
+    @Test
+    public void entityBuilderStreamsObjectsOnly() throws Exception {
+        EntityBuilder entityBuilder = new EntityBuilder();
+        assertTrue(entityBuilder.buildStreamingEntity(payload) instanceof JsonEntity);
+        HttpEntity stringEntity = entityBuilder.buildStreamingEntity("spitting cobra");
+        assertFalse(stringEntity instanceof JsonEntity);
+        assertEquals("text/plain", stringEntity.getContentType().getValue());
+    }
+
+    private void assertWritesJsonRepeatedly(JsonEntity entity) throws Exception {
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            entity.writeTo(out);
+            assertEquals(json, out.toString("UTF-8"));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.List;
+
+import org.apache.http.Consts;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonSyntaxException;
+
+import de.devbliss.apitester.ApiResponse;
+import de.devbliss.apitester.dummyserver.DummyDto;
+
+/**
+ * Unit test for {@link JsonPath} and its use by {@link ApiResponse}.
+ *
+ * @author hschuetz
+ *
+ */
+public class JsonPathUnitTest {
+
+    private static final String JSON = "{\"total\": 3, \"next\": null, \"items\": ["
+            + "{\"id\": 1, \"tags\": [\"a\", \"b\"], \"dto\": {\"someStringValue\": \"x\","
+            + " \"someIntValue\": 7, \"someBooleanValue\": true}},"
+            + "{\"id\": 2, \"tags\": []},"
+            + "{\"tags\": [\"c\"], \"id\": 3}],"
+            + " \"with.dot\": \"dotted\"}";
+
+    @Test
+    public void testSelectField() {
+        assertEquals(3, select("$.total").get(0).getAsInt());
+        assertEquals(JsonNull.INSTANCE, select("$.next").get(0));
+        assertEquals("dotted", select("$['with.dot']").get(0).getAsString());
+        assertTrue(select("$.missing").isEmpty());
+        assertTrue(select("$.total.id").isEmpty());
+    }
+
+    @Test
+    public void testSelectArrayElements() {
+        assertEquals(2, select("$.items[1].id").get(0).getAsInt());
+        assertEquals("b", select("$.items[0].tags[1]").get(0).getAsString());
+        assertTrue(select("$.items[5].id").isEmpty());
+        assertEquals(3, select("$.items").get(0).getAsJsonArray().size());
+    }
+
+    @Test
+    public void testSelectWildcards() {
+        List<JsonElement> ids = select("$.items[*].id");
+        assertEquals(3, ids.size());
+        assertEquals(1, ids.get(0).getAsInt());
+        assertEquals(3, ids.get(2).getAsInt());
+
+        List<JsonElement> tags = select("$.items[*].tags[*]");
+        assertEquals(3, tags.size());
+        assertEquals("c", tags.get(2).getAsString());
+
+        assertEquals(7, select("$.items[*].*").size());
+    }
+
+    @Test
+    public void testSelectStopsAtLimit() {
+        List<JsonElement> ids = JsonPath.compile("$.items[*].id").select(new StringReader(JSON), 2);
+        assertEquals(2, ids.size());
+    }
+
+    @Test
+    public void testStopsParsingAfterLastPossibleMatch() {
+        // everything after the match is never read
+        String broken = "{\"items\": [{\"id\": 1}, {\"id\": 2}], \"rest\": ]]] garbage";
+        assertEquals(1, JsonPath.compile("$.items[0].id").select(new StringReader(broken), 9)
+                .get(0).getAsInt());
+        assertEquals(2, JsonPath.compile("$.items[*].id").select(new StringReader(broken), 9)
+                .size());
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testMalformedBeforeMatchFails() {
+        select("$.items[0].id", "{\"other\": ]]], \"items\": [{\"id\": 1}]}");
+    }
+
+    @Test
+    public void testEmptyDocument() {
+        assertTrue(select("$.id", "").isEmpty());
+    }
+
+    @Test
+    public void testCompiledPathsAreCached() {
+        assertSame(JsonPath.compile("$.items[*].id"), JsonPath.compile("$.items[*].id"));
+    }
+
+    @Test
+    public void testInvalidPaths() {
+        for (String path : new String[] {"items", "$items", "$.", "$[", "$[-1]", "$[a]", "$.a[1"}) {
+            try {
+                JsonPath.compile(path);
+                throw new AssertionError("accepted " + path);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(path));
+            }
+        }
+    }
+
+    @Test
+    public void testApiResponseSelectsFromPayload() {
+        ApiResponse response = new ApiResponse(200, "OK", JSON.getBytes(Consts.UTF_8), null,
+                ImmutableMap.<String, String> of());
+        assertEquals(2, response.payloadJsonPath("$.items[1].id").getAsInt());
+        assertNull(response.payloadJsonPath("$.items[1].dto"));
+        assertEquals(3, response.payloadJsonPathAll("$.items[*].id").size());
+        assertEquals(new DummyDto("x", 7, true),
+                response.payloadJsonPathAs("$.items[0].dto", DummyDto.class));
+        assertEquals(Integer.valueOf(3), response.payloadJsonPathAs("$.total", Integer.class));
+
+        // also works once the payload has been decoded
+        response.getPayload();
+        assertEquals("a", response.payloadJsonPathAs("$.items[0].tags[0]", String.class));
+    }
+
+    private List<JsonElement> select(String path) {
+        return select(path, JSON);
+    }
+
+    private List<JsonElement> select(String path, String json) {
+        return JsonPath.compile(path).select(new StringReader(json), Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.json.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import org.codehaus.jackson.type.TypeReference;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+
+import de.devbliss.apitester.dummyserver.DummyDto;
+
+/**
+ * Tests that {@link GsonJsonCodec} converts like a plain {@link Gson}.
+ *
+ * @author hschuetz
+ *
+ */
+public class GsonJsonCodecUnitTest {
+
+    private final GsonJsonCodec codec = new GsonJsonCodec();
+    private final Gson gson = new Gson();
+
+    @Test
+    public void testToJsonLikeGson() throws Exception {
+        DummyDto dto = DummyDto.createSampleInstance();
+        assertEquals(gson.toJson(dto), codec.toJson(dto));
+        assertEquals("null", codec.toJson(null));
+
+        StringWriter writer = new StringWriter();
+        codec.toJson(dto, writer);
+        assertEquals(gson.toJson(dto), writer.toString());
+    }
+
+    @Test
+    public void testFromJsonRoundTrip() {
+        DummyDto dto = DummyDto.createSampleInstance();
+        String json = codec.toJson(dto);
+        assertEquals(dto, codec.fromJson(json, DummyDto.class));
+        assertEquals(dto, codec.fromJson(new StringReader(json), DummyDto.class));
+        // second call served from the adapter cache
+        assertEquals(dto, codec.fromJson(json, DummyDto.class));
+    }
+
+    @Test
+    public void testFromJsonGenericType() {
+        List<DummyDto> dtos = Arrays.asList(DummyDto.createSampleInstance(),
+                new DummyDto("other", 2, false));
+        List<DummyDto> result = codec.fromJson(codec.toJson(dtos),
+                new TypeReference<List<DummyDto>>() {}.getType());
+        assertEquals(dtos, result);
+    }
+
+    @Test
+    public void testFromEmptyJsonIsNull() {
+        assertNull(codec.fromJson("", DummyDto.class));
+        assertNull(codec.fromJson((String) null, DummyDto.class));
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testFromMalformedJsonFails() {
+        codec.fromJson("{\"someIntValue\": \"no number\"}", DummyDto.class);
+    }
+
+    @Test(expected = JsonIOException.class)
+    public void testFromJsonWithTrailingDataFails() {
+        codec.fromJson(codec.toJson(DummyDto.createSampleInstance()) + " {}", DummyDto.class);
+    }
+
+    @Test
+    public void testUsesGivenGson() {
+        GsonJsonCodec nullSerializing = new GsonJsonCodec(new GsonBuilder().serializeNulls()
+                .create());
+        assertEquals("{\"someStringValue\":null,\"someIntValue\":1,\"someBooleanValue\":null}",
+                nullSerializing.toJson(new DummyDto(null, 1, null)));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.transport.impl;
+
+import static de.devbliss.apitester.dummyserver.HandlerUtils.handleErrors;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+import java.net.URI;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.http.HttpStatus;
+import org.junit.After;
+import org.junit.Test;
+
+import de.devbliss.apitester.ApiTest;
+import de.devbliss.apitester.ApiTestUtil;
+import de.devbliss.apitester.ApiTesterModule;
+import de.devbliss.apitester.Context;
+import de.devbliss.apitester.dummyserver.DummyApiServer;
+import de.devbliss.apitester.dummyserver.DummyDto;
+import de.devbliss.apitester.dummyserver.Handler;
+import de.devbliss.apitester.transport.Transport;
+
+/**
+ * Runs the same requests with every {@link Transport} against an embedded local instance of
+ * {@link DummyApiServer}, so all of them must behave the same.
+ *
+ * @author hschuetz
+ *
+ */
+public abstract class AbstractTransportIntegrationTest {
+
+    private DummyApiServer server;
+    private ApiTest apiTest;
+
+    protected abstract Transport createTransport(DummyApiServer server);
+
+    protected void startServer(DummyApiServer server, boolean mocked) throws Exception {
+        server.start(mocked);
+    }
+
+    private void start(boolean mocked) throws Exception {
+        server = new DummyApiServer();
+        startServer(server, mocked);
+        apiTest = new ApiTest();
+        apiTest.setTestState(ApiTesterModule.createTestState(createTransport(server)));
+    }
+
+    @After
+    public void shutDown() throws Exception {
+        if (apiTest != null) {
+            apiTest.shutdown();
+        }
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testGetOk() throws Exception {
+        start(false);
+        Context context = apiTest.get(server.buildGetRequestUri(HttpStatus.SC_OK));
+        ApiTestUtil.assertOk(context.apiResponse);
+        assertEquals(DummyDto.createSampleInstance(),
+                context.apiResponse.payloadJsonAs(DummyDto.class));
+    }
+
+    @Test
+    public void testGetNotFound() throws Exception {
+        start(false);
+        Context context = apiTest.get(server.buildGetRequestUri(HttpStatus.SC_NOT_FOUND));
+        ApiTestUtil.assertNotFound(context.apiResponse);
+    }
+
+    @Test
+    public void testPostAndPatchSendPayload() throws Exception {
+        start(false);
+        DummyDto payload = DummyDto.createSampleInstance();
+        URI uri = server.buildPostRequestUri(HttpStatus.SC_OK);
+        assertEquals(payload, apiTest.post(uri, payload).apiResponse
+                .payloadJsonAs(DummyDto.class));
+        assertEquals(payload, apiTest.patch(uri, payload).apiResponse
+                .payloadJsonAs(DummyDto.class));
+    }
+
+    @Test
+    public void testCookiesPersistedBetweenRequests() throws Exception {
+        start(true);
+        server.setHandler(new Handler() {
+            public void handle(HttpServletRequest request, HttpServletResponse response)
+                    throws Exception {
+                response.addCookie(new javax.servlet.http.Cookie("batman", "robin"));
+            }
+        });
+        Context first = apiTest.get(server.buildRequestUri("blah"));
+        assertNull(first.apiRequest.getCookie("batman"));
+        assertEquals("robin", apiTest.getTestState().getCookieValue("batman"));
+
+        server.setHandler(new Handler() {
+            public void handle(HttpServletRequest request, HttpServletResponse response)
+                    throws Exception {
+                assertEquals(1, request.getCookies().length);
+                assertEquals("robin", request.getCookies()[0].getValue());
+            }
+        });
+        handleErrors(apiTest.get(server.buildRequestUri("blah")).apiResponse);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.transport.impl;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.devbliss.apitester.ApiTest;
+import de.devbliss.apitester.ApiTestUtil;
+import de.devbliss.apitester.ApiTesterModule;
+import de.devbliss.apitester.Context;
+import de.devbliss.apitester.dummyserver.DummyDto;
+import de.devbliss.apitester.dummyserver.DummyH2Server;
+
+/**
+ * Tests {@link Http2Transport} against an embedded local h2c server.
+ *
+ * @author hschuetz
+ *
+ */
+public class Http2TransportIntegrationTest {
+
+    private static final int THREADS = 32;
+    private static final int REQUESTS_PER_THREAD = 20;
+
+    private DummyH2Server server;
+    private Http2Transport transport;
+    private ApiTest apiTest;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new DummyH2Server();
+        server.start(true);
+        transport = new Http2Transport(1);
+        apiTest = new ApiTest();
+        apiTest.setTestState(ApiTesterModule.createTestState(transport));
+    }
+
+    @After
+    public void shutDown() throws Exception {
+        apiTest.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void testGetOkOverHttp2() throws Exception {
+        URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+        HttpResponse response = transport.execute(new HttpGet(uri), new BasicCookieStore());
+        assertEquals(2, response.getProtocolVersion().getMajor());
+        EntityUtils.consume(response.getEntity());
+
+        Context context = apiTest.get(uri);
+        ApiTestUtil.assertOk(context.apiResponse);
+        assertEquals(DummyDto.createSampleInstance(),
+                context.apiResponse.payloadJsonAs(DummyDto.class));
+    }
+
+    @Test
+    public void testPostSendsPayload() throws Exception {
+        DummyDto payload = DummyDto.createSampleInstance();
+        Context context = apiTest.post(server.buildPostRequestUri(HttpStatus.SC_OK), payload);
+        ApiTestUtil.assertOk(context.apiResponse);
+        assertEquals(payload, context.apiResponse.payloadJsonAs(DummyDto.class));
+    }
+
+    @Test
+    public void testErrorStatusReturned() throws Exception {
+        ApiTestUtil.assertNotFound(apiTest.get(
+                server.buildGetRequestUri(HttpStatus.SC_NOT_FOUND)).apiResponse);
+    }
+
+    @Test
+    public void testCookiesPersistedBetweenRequests() throws Exception {
+        URI uri = server.buildRequestUri(DummyH2Server.COOKIE_PATH);
+        Context first = apiTest.get(uri);
+        assertNull(first.apiRequest.getCookie("batman"));
+
+        Context second = apiTest.get(uri);
+        assertEquals("robin", second.apiRequest.getCookie("batman"));
+        assertEquals(DummyH2Server.COOKIE, second.apiResponse.getPayload());
+    }
+
+    @Test
+    public void testConcurrentRequestsMultiplexedOverOneConnection() throws Exception {
+        final URI uri = server.buildGetRequestUri(HttpStatus.SC_OK);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Void>> results = new ArrayList<Future<Void>>();
+
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        for (int j = 0; j < REQUESTS_PER_THREAD; j++) {
+                            ApiTestUtil.assertOk(apiTest.get(uri).apiResponse);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        StreamStats stats = transport.getStats();
+        assertEquals(THREADS * REQUESTS_PER_THREAD, stats.getStreams());
+        assertEquals(0, stats.getFailedStreams());
+        assertEquals(1, stats.getConnectionsOpened());
+        assertTrue(stats.toString(), stats.getPeakActiveStreams() > 1);
+    }
+}
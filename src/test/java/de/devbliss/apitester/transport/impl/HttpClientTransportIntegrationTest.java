@@ -0,0 +1,34 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.transport.impl;
+
+import org.apache.http.impl.client.HttpClients;
+
+import de.devbliss.apitester.dummyserver.DummyApiServer;
+import de.devbliss.apitester.transport.Transport;
+
+/**
+ * Tests {@link HttpClientTransport}.
+ *
+ * @author hschuetz
+ *
+ */
+public class HttpClientTransportIntegrationTest extends AbstractTransportIntegrationTest {
+
+    @Override
+    protected Transport createTransport(DummyApiServer server) {
+        return new HttpClientTransport(HttpClients.createDefault());
+    }
+}
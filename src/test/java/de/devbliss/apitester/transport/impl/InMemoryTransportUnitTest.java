@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014, devbliss GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package de.devbliss.apitester.transport.impl;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestHandler;
+import org.apache.http.util.EntityUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.devbliss.apitester.ApiTest;
+import de.devbliss.apitester.ApiTestUtil;
+import de.devbliss.apitester.ApiTesterModule;
+import de.devbliss.apitester.Context;
+import de.devbliss.apitester.dummyserver.DummyDto;
+
+/**
+ * Tests {@link InMemoryTransport} with a handler echoing requests.
+ *
+ * @author hschuetz
+ *
+ */
+public class InMemoryTransportUnitTest {
+
+    private static final URI URI = java.net.URI.create("http://localhost/echo");
+
+    private ApiTest apiTest;
+
+    @Before
+    public void setUp() {
+        apiTest = new ApiTest();
+        apiTest.setTestState(ApiTesterModule.createTestState(new InMemoryTransport(
+                new HttpRequestHandler() {
+                    public void handle(HttpRequest request, HttpResponse response,
+                            HttpContext context) throws HttpException, IOException {
+                        if (request.getFirstHeader("Cookie") == null) {
+                            response.addHeader("Set-Cookie", "session=abc; Path=/");
+                        }
+                        if (request instanceof HttpEntityEnclosingRequest) {
+                            response.setStatusCode(HttpStatus.SC_CREATED);
+                            response.setEntity(new StringEntity(EntityUtils
+                                    .toString(((HttpEntityEnclosingRequest) request)
+                                            .getEntity()), ContentType.APPLICATION_JSON));
+                        }
+                    }
+                })));
+    }
+
+    @Test
+    public void testResponseOfHandlerReturned() throws Exception {
+        DummyDto payload = DummyDto.createSampleInstance();
+        Context context = apiTest.post(URI, payload);
+        ApiTestUtil.assertCreated(context.apiResponse);
+        assertEquals(payload, context.apiResponse.payloadJsonAs(DummyDto.class));
+        assertEquals("POST", context.apiRequest.httpMethod);
+    }
+
+    @Test
+    public void testCookiesPersistedBetweenRequests() throws Exception {
+        Context first = apiTest.get(URI);
+        ApiTestUtil.assertOk(first.apiResponse);
+        assertNull(first.apiRequest.getCookie("session"));
+        assertEquals("abc", apiTest.getTestState().getCookieValue("session"));
+
+        Context second = apiTest.get(URI);
+        assertEquals("abc", second.apiRequest.getCookie("session"));
+        assertNull(second.apiResponse.headers.get("set-cookie"));
+    }
+}